@@ -3,13 +3,19 @@ package com.jdriven;
 import com.jdriven.access.SpreadsheetAccessDecisionVoter;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.access.AccessDecisionManager;
 import org.springframework.security.access.vote.AbstractAccessDecisionManager;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.method.configuration.GlobalMethodSecurityConfiguration;
 
+/**
+ * Check {@code @Secured} methods through the legacy {@link AccessDecisionManager} and its chain of voters, with
+ * {@code spreadsheet.access.legacy-voter=true}.
+ */
 @Configuration
+@ConditionalOnProperty(name = "spreadsheet.access.legacy-voter", havingValue = "true")
 @EnableGlobalMethodSecurity(securedEnabled = true)
 public class AccessDecisionConfiguration extends GlobalMethodSecurityConfiguration {
 	@Autowired
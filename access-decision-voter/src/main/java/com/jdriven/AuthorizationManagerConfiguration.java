@@ -0,0 +1,35 @@
+package com.jdriven;
+
+import com.jdriven.access.DenialLog;
+import com.jdriven.access.SpreadsheetAccessAuthorizationManager;
+import com.jdriven.access.SpreadsheetAccessDecisionCache;
+import com.jdriven.access.SpreadsheetAccessStore;
+
+import org.springframework.aop.Advisor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.security.authorization.method.AuthorizationManagerBeforeMethodInterceptor;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+
+/**
+ * Check {@code @Secured} methods through the {@link SpreadsheetAccessAuthorizationManager}, unless
+ * {@code spreadsheet.access.legacy-voter=true} selects the {@link AccessDecisionConfiguration} instead.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spreadsheet.access.legacy-voter", havingValue = "false", matchIfMissing = true)
+@EnableMethodSecurity(prePostEnabled = false)
+class AuthorizationManagerConfiguration {
+
+	@Bean
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	Advisor securedAuthorizationMethodInterceptor(SpreadsheetAccessStore store,
+			SpreadsheetAccessDecisionCache cache, DenialLog denials) {
+		SpreadsheetAccessAuthorizationManager authorizationManager = new SpreadsheetAccessAuthorizationManager(store,
+				cache, denials);
+		return new AuthorizationManagerBeforeMethodInterceptor(authorizationManager.pointcut(), authorizationManager);
+	}
+
+}
@@ -0,0 +1,120 @@
+package com.jdriven.access;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Counts spreadsheet access denials per username and secured operation, such as {@code read}, and logs a summary of
+ * them on a schedule, so that voters and authorization managers only increment a counter rather than write a log line
+ * per denial. At most {@code spreadsheet.denials.max-lines-per-second} lines are logged per second of the flush
+ * interval, with the most frequent denials first.
+ */
+@Component
+@Slf4j
+public class DenialLog implements DisposableBean {
+
+	private static final int MAX_KEYS = 10_000;
+
+	private final Map<Key, Counter> counters = new ConcurrentHashMap<>();
+	private final LongAdder overflow = new LongAdder();
+
+	private final int maxLinesPerFlush;
+
+	public DenialLog(@Value("${spreadsheet.denials.flush-interval:PT10S}") Duration flushInterval,
+			@Value("${spreadsheet.denials.max-lines-per-second:10}") int maxLinesPerSecond) {
+		this.maxLinesPerFlush = (int) Math.max(1, maxLinesPerSecond * Math.max(1, flushInterval.toSeconds()));
+	}
+
+	public void record(String username, String operation) {
+		record(new Key(username, operation), 1);
+	}
+
+	private void record(Key key, long denials) {
+		Counter counter = counters.get(key);
+		if (counter == null) {
+			if (counters.size() >= MAX_KEYS) {
+				// Keep memory bounded when a client probes with many distinct usernames
+				overflow.add(denials);
+				return;
+			}
+			counter = counters.computeIfAbsent(key, k -> new Counter());
+		}
+		counter.add(denials);
+		if (counter.retired) {
+			// Dropped by a flush while counting, which may have missed this add, so carry the rest over to a new one
+			counters.remove(key, counter);
+			long carried = counter.sumThenReset();
+			if (carried > 0) {
+				record(key, carried);
+			}
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${spreadsheet.denials.flush-interval:PT10S}")
+	public void flush() {
+		List<Map.Entry<Key, Long>> denials = new ArrayList<>();
+		counters.forEach((key, counter) -> {
+			long count = counter.sumThenReset();
+			if (count == 0) {
+				// Retire an idle counter, and count what reached it before any record could see it retired
+				counter.retired = true;
+				counters.remove(key, counter);
+				count = counter.sumThenReset();
+			}
+			if (count > 0) {
+				denials.add(Map.entry(key, count));
+			}
+		});
+		long overflowed = overflow.sumThenReset();
+		if (denials.isEmpty() && overflowed == 0) {
+			return;
+		}
+		denials.sort(Map.Entry.<Key, Long> comparingByValue(Comparator.reverseOrder()));
+
+		int logged = Math.min(denials.size(), maxLinesPerFlush);
+		for (Map.Entry<Key, Long> denial : denials.subList(0, logged)) {
+			Key key = denial.getKey();
+			log.warn("Denied {} access to {} a spreadsheet {} times", key.username(), key.operation(),
+					denial.getValue());
+		}
+		long suppressed = overflowed;
+		for (Map.Entry<Key, Long> denial : denials.subList(logged, denials.size())) {
+			suppressed += denial.getValue();
+		}
+		if (suppressed > 0) {
+			log.warn("Denied {} more requests not listed", suppressed);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		flush();
+	}
+
+	private record Key(String username, String operation) {
+	}
+
+	/**
+	 * Counts denials over striped cells, so that concurrent denials of the same username and operation do not contend;
+	 * retired once a flush finds it idle.
+	 */
+	@SuppressWarnings("serial")
+	private static final class Counter extends LongAdder {
+
+		private volatile boolean retired;
+
+	}
+
+}
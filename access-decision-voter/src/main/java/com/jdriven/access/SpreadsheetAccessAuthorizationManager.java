@@ -0,0 +1,121 @@
+package com.jdriven.access;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.jdriven.model.Spreadsheet;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Checks {@link Secured} methods in place of the {@code AccessDecisionManager} and its chain of voters: the
+ * {@code com.jdriven.model.Spreadsheet} attribute grants access to the spreadsheet argument as the
+ * {@link SpreadsheetAccessDecisionVoter} would, and any other attributes grant access to holders of those authorities.
+ * Either one suffices, as with the default {@code AffirmativeBased} decision manager.
+ * <p>
+ * The attributes and spreadsheet argument of each method are resolved by the {@link #pointcut()} while proxies are
+ * created at startup, which also fails fast on methods without a suitable argument, so checks no longer loop over
+ * voters and compare attributes.
+ */
+public class SpreadsheetAccessAuthorizationManager implements AuthorizationManager<MethodInvocation> {
+
+	private static final String SPREADSHEET_ATTRIBUTE = Spreadsheet.class.getName();
+
+	private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+
+	private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+	private final SpreadsheetAccessRule rule;
+
+	private final Map<Method, SecuredMethod> securedMethods = new ConcurrentHashMap<>();
+
+	public SpreadsheetAccessAuthorizationManager(SpreadsheetAccessStore store, SpreadsheetAccessDecisionCache cache,
+			DenialLog denials) {
+		this.rule = new SpreadsheetAccessRule(store, cache, denials);
+	}
+
+	public Pointcut pointcut() {
+		return new StaticMethodMatcherPointcut() {
+			@Override
+			public boolean matches(Method method, Class<?> targetClass) {
+				return securedMethodFor(method, targetClass) != null;
+			}
+		};
+	}
+
+	@Override
+	public AuthorizationDecision check(Supplier<Authentication> authentication, MethodInvocation invocation) {
+		SecuredMethod securedMethod = securedMethods.get(invocation.getMethod());
+		if (securedMethod == null) {
+			Object target = invocation.getThis();
+			securedMethod = securedMethodFor(invocation.getMethod(), target != null ? target.getClass() : null);
+			if (securedMethod == null) {
+				return null;
+			}
+		}
+		if (securedMethod.authorities() != null) {
+			AuthorizationDecision decision = securedMethod.authorities().check(authentication, invocation);
+			if (decision != null && decision.isGranted()) {
+				return decision;
+			}
+		}
+		if (securedMethod.spreadsheetArgument() == null) {
+			return DENIED;
+		}
+		Long spreadsheetId = securedMethod.spreadsheetArgument().spreadsheetId(invocation.getArguments());
+		return rule.hasAccess(authentication.get().getName(), spreadsheetId, securedMethod.operation())
+				? GRANTED
+				: DENIED;
+	}
+
+	private SecuredMethod securedMethodFor(Method method, Class<?> targetClass) {
+		SecuredMethod securedMethod = securedMethods.get(method);
+		if (securedMethod != null) {
+			return securedMethod;
+		}
+		Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+		Secured secured = AnnotatedElementUtils.findMergedAnnotation(specificMethod, Secured.class);
+		if (secured == null) {
+			secured = AnnotatedElementUtils.findMergedAnnotation(specificMethod.getDeclaringClass(), Secured.class);
+		}
+		if (secured == null) {
+			return null;
+		}
+		securedMethod = SecuredMethod.of(specificMethod, secured.value());
+		securedMethods.put(method, securedMethod);
+		return securedMethod;
+	}
+
+	/**
+	 * @param authorities granting access to holders of any of the other attributes, or {@code null} when there are
+	 * none
+	 * @param spreadsheetArgument checked for access, or {@code null} without the spreadsheet attribute
+	 */
+	private record SecuredMethod(AuthorizationManager<MethodInvocation> authorities,
+			SpreadsheetArgument spreadsheetArgument, String operation) {
+
+		static SecuredMethod of(Method method, String[] attributes) {
+			String[] authorities = Arrays.stream(attributes)
+					.filter(attribute -> !SPREADSHEET_ATTRIBUTE.equals(attribute))
+					.toArray(String[]::new);
+			boolean spreadsheet = authorities.length < attributes.length;
+			return new SecuredMethod(
+					authorities.length > 0 ? AuthorityAuthorizationManager.hasAnyAuthority(authorities) : null,
+					spreadsheet ? SpreadsheetArgument.of(method) : null, method.getName());
+		}
+
+	}
+
+}
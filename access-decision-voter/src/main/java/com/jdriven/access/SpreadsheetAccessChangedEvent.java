@@ -0,0 +1,7 @@
+package com.jdriven.access;
+
+/**
+ * Published by the {@link SpreadsheetAccessStore} after access of a user to a spreadsheet was granted or revoked.
+ */
+public record SpreadsheetAccessChangedEvent(String username, long spreadsheetId) {
+}
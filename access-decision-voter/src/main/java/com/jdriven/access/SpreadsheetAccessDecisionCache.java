@@ -0,0 +1,167 @@
+package com.jdriven.access;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Remembers access decisions per principal and spreadsheet id for up to {@code spreadsheet.access.cache.ttl}, and
+ * for at most {@code spreadsheet.access.cache.maximum-size} pairs, beyond which arbitrary decisions are evicted. A size
+ * of {@code 0} disables the cache.
+ * <p>
+ * Decisions are invalidated as soon as the {@link SpreadsheetAccessStore} publishes a change for the pair. A decision
+ * looked up while any change is published is returned, but not remembered, so a lookup racing a change can not leave
+ * a stale decision behind.
+ */
+@Component
+public class SpreadsheetAccessDecisionCache implements MeterBinder {
+
+	private final Map<Key, Decision> decisions = new ConcurrentHashMap<>();
+
+	private final AtomicLong changes = new AtomicLong();
+
+	private final long timeToLiveNanos;
+
+	private final int maximumSize;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder sizeEvictions = new LongAdder();
+	private final LongAdder expirations = new LongAdder();
+	private final LongAdder invalidations = new LongAdder();
+
+	public SpreadsheetAccessDecisionCache(@Value("${spreadsheet.access.cache.ttl:PT1M}") Duration timeToLive,
+			@Value("${spreadsheet.access.cache.maximum-size:100000}") int maximumSize) {
+		this.timeToLiveNanos = timeToLive.toNanos();
+		this.maximumSize = maximumSize;
+	}
+
+	/**
+	 * @return the remembered decision for the principal and spreadsheet, or else the decision made, which is then
+	 * remembered
+	 */
+	public boolean decide(String principal, Long spreadsheetId, BooleanSupplier decision) {
+		if (maximumSize == 0 || spreadsheetId == null) {
+			return decision.getAsBoolean();
+		}
+		Key key = new Key(principal, spreadsheetId);
+		long now = System.nanoTime();
+		Decision cached = decisions.get(key);
+		if (cached != null) {
+			if (now - cached.expiresAt() < 0) {
+				hits.increment();
+				return cached.granted();
+			}
+			if (decisions.remove(key, cached)) {
+				expirations.increment();
+			}
+		}
+		misses.increment();
+
+		long changesBefore = changes.get();
+		Decision decided = new Decision(decision.getAsBoolean(), now + timeToLiveNanos);
+		decisions.put(key, decided);
+		if (changes.get() != changesBefore) {
+			// The decision may predate a change published meanwhile, of which the invalidation may have run already
+			decisions.remove(key, decided);
+		}
+		else if (decisions.size() > maximumSize) {
+			evict();
+		}
+		return decided.granted();
+	}
+
+	@EventListener
+	public void onAccessChanged(SpreadsheetAccessChangedEvent event) {
+		changes.incrementAndGet();
+		if (decisions.remove(new Key(event.username(), event.spreadsheetId())) != null) {
+			invalidations.increment();
+		}
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public double getHitRatio() {
+		long hits = getHits();
+		long lookups = hits + getMisses();
+		return lookups == 0 ? Double.NaN : (double) hits / lookups;
+	}
+
+	public long getEvictions() {
+		return sizeEvictions.sum();
+	}
+
+	public long getExpirations() {
+		return expirations.sum();
+	}
+
+	public long getInvalidations() {
+		return invalidations.sum();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("spreadsheet.access.cache", hits, LongAdder::sum)
+				.tag("result", "hit")
+				.description("Access decisions answered from the cache")
+				.register(registry);
+		FunctionCounter.builder("spreadsheet.access.cache", misses, LongAdder::sum)
+				.tag("result", "miss")
+				.description("Access decisions made against the store")
+				.register(registry);
+		FunctionCounter.builder("spreadsheet.access.cache.evictions", sizeEvictions, LongAdder::sum)
+				.tag("cause", "size")
+				.description("Access decisions evicted to stay within the maximum size")
+				.register(registry);
+		FunctionCounter.builder("spreadsheet.access.cache.evictions", expirations, LongAdder::sum)
+				.tag("cause", "expired")
+				.description("Access decisions evicted after their time to live")
+				.register(registry);
+		FunctionCounter.builder("spreadsheet.access.cache.evictions", invalidations, LongAdder::sum)
+				.tag("cause", "invalidated")
+				.description("Access decisions evicted on a change to the store")
+				.register(registry);
+		Gauge.builder("spreadsheet.access.cache.hit-ratio", this, SpreadsheetAccessDecisionCache::getHitRatio)
+				.description("Fraction of access decisions answered from the cache")
+				.register(registry);
+		Gauge.builder("spreadsheet.access.cache.size", decisions, Map::size)
+				.description("Access decisions in the cache")
+				.register(registry);
+	}
+
+	private void evict() {
+		// Iteration order of the map is unrelated to insertion or access order, so this evicts arbitrary decisions
+		Iterator<Decision> iterator = decisions.values().iterator();
+		while (decisions.size() > maximumSize && iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+			sizeEvictions.increment();
+		}
+	}
+
+	private record Key(String principal, long spreadsheetId) {
+	}
+
+	private record Decision(boolean granted, long expiresAt) {
+	}
+
+}
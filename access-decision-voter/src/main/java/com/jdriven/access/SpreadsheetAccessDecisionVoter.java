@@ -1,6 +1,9 @@
 package com.jdriven.access;
 
+import java.lang.reflect.Method;
 import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.jdriven.model.Spreadsheet;
 
@@ -11,16 +14,22 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Component;
 
-import lombok.extern.slf4j.Slf4j;
-
+/**
+ * Votes on access to the {@link Spreadsheet}, or the {@code Long} spreadsheet id, passed to secured methods.
+ * <p>
+ * Rather than looking for the spreadsheet argument through {@link #getDomainObjectInstance(MethodInvocation)} on every
+ * vote, which copies the parameter types of the method each time, the argument is resolved once per method.
+ */
 @Component
-@Slf4j
 public class SpreadsheetAccessDecisionVoter extends AbstractAclVoter {
 
-	private final SpreadsheetAccessStore store;
+	private final SpreadsheetAccessRule rule;
+
+	private final Map<Method, SpreadsheetArgument> spreadsheetArguments = new ConcurrentHashMap<>();
 
-	public SpreadsheetAccessDecisionVoter(SpreadsheetAccessStore store) {
-		this.store = store;
+	public SpreadsheetAccessDecisionVoter(SpreadsheetAccessStore store, SpreadsheetAccessDecisionCache cache,
+			DenialLog denials) {
+		this.rule = new SpreadsheetAccessRule(store, cache, denials);
 		setProcessDomainObjectClass(Spreadsheet.class);
 	}
 
@@ -35,20 +44,15 @@ public class SpreadsheetAccessDecisionVoter extends AbstractAclVoter {
 		for (ConfigAttribute configAttribute : attributes) {
 			if (supports(configAttribute)) {
 				User principal = (User) authentication.getPrincipal();
-				Spreadsheet domainObjectInstance = (Spreadsheet) getDomainObjectInstance(methodInvocation);
-				return hasSpreadsheetAccess(principal, domainObjectInstance) ? ACCESS_GRANTED : ACCESS_DENIED;
+				Method method = methodInvocation.getMethod();
+				Long spreadsheetId = spreadsheetArguments.computeIfAbsent(method, SpreadsheetArgument::of)
+						.spreadsheetId(methodInvocation.getArguments());
+				return rule.hasAccess(principal.getUsername(), spreadsheetId, method.getName())
+						? ACCESS_GRANTED
+						: ACCESS_DENIED;
 			}
 		}
 		return ACCESS_ABSTAIN;
 	}
 
-	private boolean hasSpreadsheetAccess(User principal, Spreadsheet spreadsheet) {
-		boolean hasPermission = store.getAccess().stream().anyMatch(p -> p.getUser().equals(principal)
-				&& p.getSpreadsheet().equals(spreadsheet));
-		if (!hasPermission) {
-			log.warn("Denying {} {} access to {}", principal, spreadsheet);
-		}
-		return hasPermission;
-	}
-
 }
@@ -0,0 +1,29 @@
+package com.jdriven.access;
+
+/**
+ * Grants access to a spreadsheet as stored in the {@link SpreadsheetAccessStore}, remembered by the
+ * {@link SpreadsheetAccessDecisionCache}, and records any denial in the {@link DenialLog}.
+ */
+final class SpreadsheetAccessRule {
+
+	private final SpreadsheetAccessStore store;
+
+	private final SpreadsheetAccessDecisionCache cache;
+
+	private final DenialLog denials;
+
+	SpreadsheetAccessRule(SpreadsheetAccessStore store, SpreadsheetAccessDecisionCache cache, DenialLog denials) {
+		this.store = store;
+		this.cache = cache;
+		this.denials = denials;
+	}
+
+	boolean hasAccess(String username, Long spreadsheetId, String operation) {
+		boolean hasAccess = cache.decide(username, spreadsheetId, () -> store.hasAccess(username, spreadsheetId));
+		if (!hasAccess) {
+			denials.record(username, operation);
+		}
+		return hasAccess;
+	}
+
+}
@@ -1,16 +1,97 @@
 package com.jdriven.access;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
+import org.springframework.util.Assert;
 
-import lombok.Value;
+import lombok.RequiredArgsConstructor;
 
+/**
+ * Indexes access by username, and then by spreadsheet id, so checking access is a hash lookup and a binary search
+ * rather than a scan over all access granted, comparing whole users and spreadsheets.
+ * <p>
+ * The spreadsheet ids of each user are kept in a sorted {@code long[]}, taking 8 bytes per grant instead of a
+ * {@link SpreadsheetAccess} and its hash set entry. The array is replaced rather than modified on every grant and
+ * revoke of the user, which are serialized per user, so threads checking access never see a partial change.
+ * <p>
+ * Every change publishes a {@link SpreadsheetAccessChangedEvent}, so that decisions derived from the store can be
+ * invalidated.
+ */
 @Repository
-@Value
+@RequiredArgsConstructor
 public class SpreadsheetAccessStore {
 
-	private Set<SpreadsheetAccess> access = new HashSet<>();
+	private final Map<String, long[]> spreadsheetsByUsername = new ConcurrentHashMap<>();
+
+	private final ApplicationEventPublisher events;
+
+	public boolean hasAccess(String username, Long spreadsheetId) {
+		if (spreadsheetId == null) {
+			return false;
+		}
+		long[] spreadsheetIds = spreadsheetsByUsername.get(username);
+		return spreadsheetIds != null && Arrays.binarySearch(spreadsheetIds, spreadsheetId) >= 0;
+	}
+
+	public void grant(SpreadsheetAccess spreadsheetAccess) {
+		grant(spreadsheetAccess.getUser().getUsername(), spreadsheetAccess.getSpreadsheet().getId());
+	}
+
+	public void grant(String username, Long spreadsheetId) {
+		Assert.notNull(spreadsheetId, "Spreadsheet id must not be null");
+		boolean[] changed = new boolean[1];
+		spreadsheetsByUsername.compute(username, (user, spreadsheetIds) -> {
+			if (spreadsheetIds == null) {
+				changed[0] = true;
+				return new long[] { spreadsheetId };
+			}
+			int index = Arrays.binarySearch(spreadsheetIds, spreadsheetId);
+			if (index >= 0) {
+				return spreadsheetIds;
+			}
+			int insertion = -index - 1;
+			long[] granted = new long[spreadsheetIds.length + 1];
+			System.arraycopy(spreadsheetIds, 0, granted, 0, insertion);
+			granted[insertion] = spreadsheetId;
+			System.arraycopy(spreadsheetIds, insertion, granted, insertion + 1, spreadsheetIds.length - insertion);
+			changed[0] = true;
+			return granted;
+		});
+		if (changed[0]) {
+			events.publishEvent(new SpreadsheetAccessChangedEvent(username, spreadsheetId));
+		}
+	}
+
+	public void revoke(SpreadsheetAccess spreadsheetAccess) {
+		revoke(spreadsheetAccess.getUser().getUsername(), spreadsheetAccess.getSpreadsheet().getId());
+	}
+
+	public void revoke(String username, Long spreadsheetId) {
+		if (spreadsheetId == null) {
+			return;
+		}
+		boolean[] changed = new boolean[1];
+		spreadsheetsByUsername.computeIfPresent(username, (user, spreadsheetIds) -> {
+			int index = Arrays.binarySearch(spreadsheetIds, spreadsheetId);
+			if (index < 0) {
+				return spreadsheetIds;
+			}
+			changed[0] = true;
+			if (spreadsheetIds.length == 1) {
+				return null;
+			}
+			long[] revoked = new long[spreadsheetIds.length - 1];
+			System.arraycopy(spreadsheetIds, 0, revoked, 0, index);
+			System.arraycopy(spreadsheetIds, index + 1, revoked, index, revoked.length - index);
+			return revoked;
+		});
+		if (changed[0]) {
+			events.publishEvent(new SpreadsheetAccessChangedEvent(username, spreadsheetId));
+		}
+	}
 
 }
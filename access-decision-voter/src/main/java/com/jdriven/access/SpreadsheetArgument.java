@@ -0,0 +1,37 @@
+package com.jdriven.access;
+
+import java.lang.reflect.Method;
+
+import com.jdriven.model.Spreadsheet;
+
+/**
+ * The position of the {@link Spreadsheet}, or else the {@code Long} spreadsheet id, among the parameters of a secured
+ * method, resolved once per method rather than on every check.
+ */
+record SpreadsheetArgument(int index, boolean byId) {
+
+	static SpreadsheetArgument of(Method method) {
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		for (int i = 0; i < parameterTypes.length; i++) {
+			if (Spreadsheet.class.isAssignableFrom(parameterTypes[i])) {
+				return new SpreadsheetArgument(i, false);
+			}
+		}
+		for (int i = 0; i < parameterTypes.length; i++) {
+			if (parameterTypes[i] == Long.class || parameterTypes[i] == long.class) {
+				return new SpreadsheetArgument(i, true);
+			}
+		}
+		throw new IllegalArgumentException("Method " + method + " did not provide any argument of type: "
+				+ Spreadsheet.class + " or Long");
+	}
+
+	Long spreadsheetId(Object[] arguments) {
+		Object argument = arguments[index];
+		if (byId) {
+			return (Long) argument;
+		}
+		return argument != null ? ((Spreadsheet) argument).getId() : null;
+	}
+
+}
@@ -16,4 +16,14 @@ public class SpreadsheetService {
 		log.info("Reading {}", spreadsheet);
 	}
 
+	@Secured("com.jdriven.model.Spreadsheet")
+	public void readById(Long spreadsheetId) {
+		log.info("Reading spreadsheet {}", spreadsheetId);
+	}
+
+	@Secured({ "ROLE_AUDITOR", "com.jdriven.model.Spreadsheet" })
+	public void audit(Spreadsheet spreadsheet) {
+		log.info("Auditing {}", spreadsheet);
+	}
+
 }
@@ -0,0 +1,105 @@
+package com.jdriven.access;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DenialLogTest {
+
+	private final Logger logger = (Logger) LoggerFactory.getLogger(DenialLog.class);
+
+	private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+	@BeforeEach
+	void setup() {
+		appender.start();
+		logger.addAppender(appender);
+	}
+
+	@AfterEach
+	void tearDown() {
+		logger.detachAppender(appender);
+	}
+
+	@Test
+	void testDenialsAreSummarizedPerUsernameAndOperation() {
+		DenialLog denials = new DenialLog(Duration.ofSeconds(1), 2);
+		for (int i = 0; i < 3; i++) {
+			denials.record("eve", "read");
+		}
+		denials.record("eve", "audit");
+		denials.record("mallory", "read");
+		assertThat(appender.list).isEmpty();
+
+		denials.flush();
+		assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage).startsWith(
+				"Denied eve access to read a spreadsheet 3 times")
+				.endsWith("Denied 1 more requests not listed")
+				.hasSize(3);
+
+		// Idle counters are dropped, and recreated once denied again
+		denials.flush();
+		denials.record("eve", "read");
+		denials.flush();
+		assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage)
+				.endsWith("Denied eve access to read a spreadsheet 1 times");
+	}
+
+	@Test
+	void testContendedDenialsOfOneUsernameAreAllCounted() throws Exception {
+		DenialLog denials = new DenialLog(Duration.ofSeconds(1), 10);
+		int threads = 4;
+		int denialsPerThread = 50_000;
+		AtomicBoolean recording = new AtomicBoolean(true);
+		Thread flusher = new Thread(() -> {
+			while (recording.get()) {
+				denials.flush();
+			}
+		});
+		flusher.start();
+		List<Thread> recorders = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			Thread recorder = new Thread(() -> {
+				for (int i = 0; i < denialsPerThread; i++) {
+					denials.record("eve", "read");
+					if (i % 1_000 == 0) {
+						// Pause now and then, so that the counter goes idle and is retired while still recorded to
+						Thread.yield();
+					}
+				}
+			});
+			recorders.add(recorder);
+			recorder.start();
+		}
+		for (Thread recorder : recorders) {
+			recorder.join();
+		}
+		recording.set(false);
+		flusher.join();
+		denials.flush();
+
+		Pattern times = Pattern.compile("Denied eve access to read a spreadsheet (\\d+) times");
+		long logged = 0;
+		for (ILoggingEvent event : appender.list) {
+			Matcher matcher = times.matcher(event.getFormattedMessage());
+			assertThat(matcher.matches()).isTrue();
+			logged += Long.parseLong(matcher.group(1));
+		}
+		assertThat(logged).isEqualTo((long) threads * denialsPerThread);
+	}
+
+}
@@ -0,0 +1,27 @@
+package com.jdriven.access;
+
+import com.jdriven.AccessDecisionConfiguration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the same checks as {@link SpreadsheetAccessDecisionVoterIT}, through the default
+ * {@link SpreadsheetAccessAuthorizationManager} rather than the legacy voter chain.
+ */
+@SpringBootTest
+class SpreadsheetAccessAuthorizationManagerIT extends SpreadsheetAccessDecisionVoterIT {
+
+	@Autowired
+	private ApplicationContext context;
+
+	@Test
+	void testLegacyVoterChainNotConfigured() {
+		assertThat(context.getBeansOfType(AccessDecisionConfiguration.class)).isEmpty();
+	}
+
+}
@@ -0,0 +1,51 @@
+package com.jdriven.access;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpreadsheetAccessDecisionCacheTest {
+
+	private final SpreadsheetAccessDecisionCache cache = new SpreadsheetAccessDecisionCache(Duration.ofMinutes(1), 2);
+
+	@Test
+	void testDecisionsRememberedUntilInvalidated() {
+		assertThat(cache.decide("alice", 1L, () -> true)).isTrue();
+		assertThat(cache.decide("alice", 1L, () -> false)).isTrue();
+		assertThat(cache.getHitRatio()).isEqualTo(0.5);
+
+		cache.onAccessChanged(new SpreadsheetAccessChangedEvent("alice", 1L));
+		assertThat(cache.decide("alice", 1L, () -> false)).isFalse();
+		assertThat(cache.getInvalidations()).isOne();
+	}
+
+	@Test
+	void testDecisionsExpire() {
+		SpreadsheetAccessDecisionCache cache = new SpreadsheetAccessDecisionCache(Duration.ZERO, 2);
+		assertThat(cache.decide("alice", 1L, () -> true)).isTrue();
+		assertThat(cache.decide("alice", 1L, () -> false)).isFalse();
+		assertThat(cache.getHits()).isZero();
+		assertThat(cache.getExpirations()).isOne();
+	}
+
+	@Test
+	void testDecisionsEvictedBeyondMaximumSize() {
+		for (long id = 0; id < 10; id++) {
+			cache.decide("alice", id, () -> true);
+		}
+		assertThat(cache.getEvictions()).isEqualTo(8);
+	}
+
+	@Test
+	void testDecisionRacingChangeNotRemembered() {
+		SpreadsheetAccessChangedEvent change = new SpreadsheetAccessChangedEvent("bob", 2L);
+		assertThat(cache.decide("alice", 1L, () -> {
+			cache.onAccessChanged(change);
+			return true;
+		})).isTrue();
+		assertThat(cache.decide("alice", 1L, () -> false)).isFalse();
+	}
+
+}
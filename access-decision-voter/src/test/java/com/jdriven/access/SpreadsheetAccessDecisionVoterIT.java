@@ -13,9 +13,10 @@ import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.test.context.support.WithMockUser;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
-@SpringBootTest
+@SpringBootTest(properties = "spreadsheet.access.legacy-voter=true")
 class SpreadsheetAccessDecisionVoterIT {
 
 	@Autowired
@@ -24,15 +25,19 @@ class SpreadsheetAccessDecisionVoterIT {
 	@Autowired
 	private SpreadsheetService service;
 
+	@Autowired
+	private SpreadsheetAccessDecisionCache cache;
+
 	private Spreadsheet spreadsheet;
 
+	private final User alice = new User("alice", "", Collections.emptyList());
+
 	@BeforeEach
 	void setup() {
-		User alice = new User("alice", "", Collections.emptyList());
 		User bob = new User("bob", "", Collections.emptyList());
 		spreadsheet = new Spreadsheet(123L, "alice's spreadsheet");
-		store.getAccess().add(new SpreadsheetAccess(alice, spreadsheet));
-		store.getAccess().add(new SpreadsheetAccess(bob, spreadsheet));
+		store.grant(new SpreadsheetAccess(alice, spreadsheet));
+		store.grant(new SpreadsheetAccess(bob, spreadsheet));
 	}
 
 	@Test
@@ -48,6 +53,30 @@ class SpreadsheetAccessDecisionVoterIT {
 		assertThrows(AccessDeniedException.class, () -> service.read(anotherSpreadsheet));
 	}
 
+	@Test
+	@WithMockUser("alice")
+	void testAliceAllowedToReadSpreadsheetById() {
+		service.readById(123L);
+	}
+
+	@Test
+	@WithMockUser("alice")
+	void testAliceNotAllowedToReadAnotherSpreadsheetById() {
+		assertThrows(AccessDeniedException.class, () -> service.readById(345L));
+	}
+
+	@Test
+	@WithMockUser("alice")
+	void testAliceNotAllowedToReadSpreadsheetOnceRevoked() {
+		service.read(spreadsheet);
+		long hits = cache.getHits();
+		service.read(spreadsheet);
+		assertThat(cache.getHits()).isEqualTo(hits + 1);
+
+		store.revoke(new SpreadsheetAccess(alice, spreadsheet));
+		assertThrows(AccessDeniedException.class, () -> service.read(spreadsheet));
+	}
+
 	@Test
 	@WithMockUser("bob")
 	void testBobAllowedToReadSpreadsheet() {
@@ -60,4 +89,28 @@ class SpreadsheetAccessDecisionVoterIT {
 		assertThrows(AccessDeniedException.class, () -> service.read(spreadsheet));
 	}
 
+	@Test
+	@WithMockUser("eve")
+	void testEveNotAllowedToReadSpreadsheetById() {
+		assertThrows(AccessDeniedException.class, () -> service.readById(123L));
+	}
+
+	@Test
+	@WithMockUser("alice")
+	void testAliceAllowedToAuditSpreadsheet() {
+		service.audit(spreadsheet);
+	}
+
+	@Test
+	@WithMockUser(username = "eve", roles = "AUDITOR")
+	void testAuditorAllowedToAuditSpreadsheet() {
+		service.audit(spreadsheet);
+	}
+
+	@Test
+	@WithMockUser("eve")
+	void testEveNotAllowedToAuditSpreadsheet() {
+		assertThrows(AccessDeniedException.class, () -> service.audit(spreadsheet));
+	}
+
 }
@@ -0,0 +1,67 @@
+package com.jdriven.access;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpreadsheetAccessStoreTest {
+
+	private final List<Object> events = new ArrayList<>();
+
+	private final SpreadsheetAccessStore store = new SpreadsheetAccessStore(events::add);
+
+	@Test
+	void testGrantAndRevokePublishChanges() {
+		store.grant("alice", 1L);
+		store.grant("alice", 1L);
+		assertThat(store.hasAccess("alice", 1L)).isTrue();
+		assertThat(store.hasAccess("bob", 1L)).isFalse();
+		assertThat(store.hasAccess("alice", 2L)).isFalse();
+
+		store.revoke("alice", 1L);
+		store.revoke("alice", 1L);
+		assertThat(store.hasAccess("alice", 1L)).isFalse();
+		assertThat(events).containsExactly(new SpreadsheetAccessChangedEvent("alice", 1L),
+				new SpreadsheetAccessChangedEvent("alice", 1L));
+	}
+
+	@Test
+	void testConcurrentGrantsAndRevokes() throws Exception {
+		SpreadsheetAccessStore store = new SpreadsheetAccessStore(event -> {
+		});
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> writers = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				String username = "user" + t;
+				writers.add(executor.submit(() -> {
+					// Writers for different users modify the same spreadsheets, each granting and revoking over and over
+					for (int i = 0; i < 10_000; i++) {
+						store.grant(username, (long) i % 10);
+						store.revoke(username, (long) (i + 5) % 10);
+					}
+				}));
+			}
+			for (Future<?> writer : writers) {
+				writer.get(1, TimeUnit.MINUTES);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		for (int t = 0; t < 4; t++) {
+			for (long id = 0; id < 10; id++) {
+				// Each writer last revoked spreadsheets 0 to 4 after granting them, and the others the other way around
+				assertThat(store.hasAccess("user" + t, id)).isEqualTo(id >= 5);
+			}
+		}
+	}
+
+}
@@ -1,18 +1,34 @@
 package com.jdriven.leaverequest;
 
 import java.time.LocalDate;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.jdriven.leaverequest.LeaveRequest.Status;
+import com.jdriven.leaverequest.LeaveRequestOutcomeDTO.Outcome;
+import com.jdriven.leaverequest.LeaveRequestRepository.StatusUpdate;
 
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
@@ -25,13 +41,20 @@ import static org.springframework.http.ResponseEntity.ok;
 @RequiredArgsConstructor
 class LeaveRequestController {
 
+	private static final int MAX_PAGE_SIZE = 1000;
+
+	private static final int MAX_BATCH_SIZE = 10_000;
+
 	private final LeaveRequestService service;
 
+	private final ObjectMapper objectMapper;
+
 	@PostMapping("/request/{employee}")
 	public ResponseEntity<LeaveRequestDTO> request(
 			@PathVariable String employee,
 			@DateTimeFormat(iso = ISO.DATE) @RequestParam LocalDate from,
 			@DateTimeFormat(iso = ISO.DATE) @RequestParam LocalDate to) {
+		requireRange(from, to);
 		LeaveRequest leaveRequest = service.request(employee, from, to);
 		return accepted().body(new LeaveRequestDTO(leaveRequest));
 	}
@@ -50,6 +73,25 @@ class LeaveRequestController {
 				.orElse(noContent().build());
 	}
 
+	/**
+	 * Approves the leave requests of all ids given at once, reporting the outcome for each id in the order given; those
+	 * that would overlap another leave request of the same employee are reported as a conflict, and left as they were.
+	 */
+	@PostMapping("/approve")
+	public List<LeaveRequestOutcomeDTO> approveAll(@RequestBody List<UUID> ids) {
+		requireBatch(ids);
+		return outcomes(ids, service.approveAll(ids));
+	}
+
+	/**
+	 * Denies the leave requests of all ids given at once, reporting the outcome for each id in the order given.
+	 */
+	@PostMapping("/deny")
+	public List<LeaveRequestOutcomeDTO> denyAll(@RequestBody List<UUID> ids) {
+		requireBatch(ids);
+		return outcomes(ids, service.denyAll(ids));
+	}
+
 	@GetMapping("/view/request/{id}")
 	public ResponseEntity<LeaveRequestDTO> viewRequest(@PathVariable UUID id) {
 		return service.retrieve(id)
@@ -64,6 +106,19 @@ class LeaveRequestController {
 				.collect(Collectors.toList());
 	}
 
+	/**
+	 * Views the leave requests that were not denied spanning any date from {@code from} up to and including {@code to}.
+	 */
+	@GetMapping("/view/range")
+	public List<LeaveRequestDTO> viewRange(
+			@DateTimeFormat(iso = ISO.DATE) @RequestParam LocalDate from,
+			@DateTimeFormat(iso = ISO.DATE) @RequestParam LocalDate to) {
+		requireRange(from, to);
+		return service.retrieveOverlapping(from, to).stream()
+				.map(LeaveRequestDTO::new)
+				.collect(Collectors.toList());
+	}
+
 	@GetMapping("/view/all")
 	public List<LeaveRequestDTO> viewAll() {
 		return service.retrieveAll().stream()
@@ -71,11 +126,105 @@ class LeaveRequestController {
 				.collect(Collectors.toList());
 	}
 
+	/**
+	 * Pages through all leave requests in order of their id, continuing {@code after} the {@code next} id of the
+	 * previous page, which is absent on the last page.
+	 */
+	@GetMapping(path = "/view/all", params = "limit")
+	public LeaveRequestPageDTO viewAll(@RequestParam int limit, @RequestParam(required = false) UUID after) {
+		if (limit < 1 || MAX_PAGE_SIZE < limit) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_PAGE_SIZE);
+		}
+		// Look one leave request ahead to tell whether there is a next page
+		List<LeaveRequest> found = service.retrieveAll(after, limit + 1);
+		List<LeaveRequestDTO> leaveRequests = found.stream()
+				.limit(limit)
+				.map(LeaveRequestDTO::new)
+				.collect(Collectors.toList());
+		UUID next = found.size() > limit ? leaveRequests.get(limit - 1).getId() : null;
+		return new LeaveRequestPageDTO(leaveRequests, next);
+	}
+
+	/**
+	 * Streams all leave requests as newline delimited JSON, writing each as it is read, rather than holding them all.
+	 */
+	@GetMapping(path = "/view/all/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> viewAllStream() {
+		// Authorize on the request thread, before the response is written on another
+		Stream<LeaveRequest> leaveRequests = service.streamAll();
+		ObjectWriter writer = objectMapper.writerFor(LeaveRequestDTO.class)
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		StreamingResponseBody body = out -> {
+			try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+				generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+				// Separate leave requests by the newline written after each, rather than by the default space
+				generator.setRootValueSeparator(null);
+				Iterator<LeaveRequest> iterator = leaveRequests.iterator();
+				while (iterator.hasNext()) {
+					writer.writeValue(generator, new LeaveRequestDTO(iterator.next()));
+					generator.writeRaw('\n');
+				}
+			}
+		};
+		return ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+	}
+
 	@GetMapping("/whoami")
 	public JwtAuthenticationToken whoami(JwtAuthenticationToken auth) {
 		return auth;
 	}
 
+	private static void requireBatch(List<UUID> ids) {
+		if (ids.isEmpty() || MAX_BATCH_SIZE < ids.size()) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ids must number between 1 and " + MAX_BATCH_SIZE);
+		}
+		if (ids.contains(null)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ids must not be null");
+		}
+	}
+
+	private static List<LeaveRequestOutcomeDTO> outcomes(List<UUID> ids, StatusUpdate update) {
+		Map<UUID, LeaveRequest> updatedById = update.updated().stream()
+				.collect(Collectors.toMap(LeaveRequest::getId, Function.identity()));
+		return ids.stream()
+				.map(id -> Optional.ofNullable(updatedById.get(id))
+						.map(lr -> new LeaveRequestOutcomeDTO(id, Outcome.UPDATED, new LeaveRequestDTO(lr)))
+						.orElseGet(() -> new LeaveRequestOutcomeDTO(id,
+								update.overlapping().containsKey(id) ? Outcome.CONFLICT : Outcome.NOT_FOUND, null)))
+				.collect(Collectors.toList());
+	}
+
+	private static void requireRange(LocalDate from, LocalDate to) {
+		if (to.isBefore(from)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "From date must not be after to date");
+		}
+	}
+
+}
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+class LeaveRequestPageDTO {
+
+	private List<LeaveRequestDTO> leaveRequests;
+	private UUID next;
+
+}
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+class LeaveRequestOutcomeDTO {
+
+	private UUID id;
+	private Outcome outcome;
+	private LeaveRequestDTO leaveRequest;
+
+	enum Outcome {
+		UPDATED, NOT_FOUND, CONFLICT
+	}
+
 }
 
 @Data
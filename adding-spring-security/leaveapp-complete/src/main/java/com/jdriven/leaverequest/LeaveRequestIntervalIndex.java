@@ -0,0 +1,159 @@
+package com.jdriven.leaverequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Indexes leave requests by the dates they span, to find those overlapping a range of dates.
+ * <p>
+ * The index is a treap ordered by from date and id, where every node also holds the latest to date within its
+ * subtree, so that a search skips any subtree ending before the range starts, and stops at the first node starting
+ * after the range ends. Every leave request found may still take a path of its own down the tree, so finding
+ * {@code k} leave requests among {@code n} visits {@code O(min(n, (k + 1) log n))} nodes in expectation.
+ * <p>
+ * Nodes are never modified; changes copy the nodes on the path to the root, which is then replaced, so searches run
+ * without locks on whichever root they start from. Changes themselves are serialized.
+ */
+class LeaveRequestIntervalIndex {
+
+	private static final Comparator<Node> ORDER = Comparator.comparing(Node::fromDate).thenComparing(Node::id);
+
+	private volatile Node root;
+
+	/**
+	 * The from date each leave request is indexed under, to find its node again once its dates changed.
+	 */
+	private final Map<UUID, LocalDate> indexedFromDates = new HashMap<>();
+
+	/**
+	 * Indexes the leave request by its current dates, replacing any earlier dates it was indexed under.
+	 */
+	synchronized void put(LeaveRequest leaveRequest) {
+		remove(leaveRequest.getId());
+		Node node = new Node(leaveRequest.getFromDate(), leaveRequest.getId(), leaveRequest.getToDate(),
+				leaveRequest, ThreadLocalRandom.current().nextInt(), null, null, leaveRequest.getToDate());
+		root = insert(root, node);
+		indexedFromDates.put(leaveRequest.getId(), leaveRequest.getFromDate());
+	}
+
+	synchronized void remove(UUID id) {
+		LocalDate fromDate = indexedFromDates.remove(id);
+		if (fromDate != null) {
+			root = delete(root, fromDate, id);
+		}
+	}
+
+	synchronized void clear() {
+		root = null;
+		indexedFromDates.clear();
+	}
+
+	/**
+	 * @return the leave requests spanning any date from {@code from} up to and including {@code to}, in order of their
+	 * from date
+	 */
+	List<LeaveRequest> findOverlapping(LocalDate from, LocalDate to) {
+		List<LeaveRequest> found = new ArrayList<>();
+		collectOverlapping(root, from, to, found);
+		return found;
+	}
+
+	private static void collectOverlapping(Node node, LocalDate from, LocalDate to, List<LeaveRequest> found) {
+		if (node == null || node.maxToDate().isBefore(from)) {
+			return;
+		}
+		collectOverlapping(node.left(), from, to, found);
+		if (node.fromDate().isAfter(to)) {
+			// This leave request and all following it start after the range
+			return;
+		}
+		if (!node.toDate().isBefore(from)) {
+			found.add(node.leaveRequest());
+		}
+		collectOverlapping(node.right(), from, to, found);
+	}
+
+	private static Node insert(Node node, Node inserted) {
+		if (node == null) {
+			return inserted;
+		}
+		if (inserted.priority() > node.priority()) {
+			Node[] split = split(node, inserted);
+			return inserted.with(split[0], split[1]);
+		}
+		return ORDER.compare(inserted, node) < 0
+				? node.with(insert(node.left(), inserted), node.right())
+				: node.with(node.left(), insert(node.right(), inserted));
+	}
+
+	/**
+	 * @return the nodes ordered before the key, and those ordered after it
+	 */
+	private static Node[] split(Node node, Node key) {
+		if (node == null) {
+			return new Node[2];
+		}
+		if (ORDER.compare(node, key) < 0) {
+			Node[] split = split(node.right(), key);
+			split[0] = node.with(node.left(), split[0]);
+			return split;
+		}
+		Node[] split = split(node.left(), key);
+		split[1] = node.with(split[1], node.right());
+		return split;
+	}
+
+	private static Node delete(Node node, LocalDate fromDate, UUID id) {
+		if (node == null) {
+			return null;
+		}
+		int order = fromDate.compareTo(node.fromDate());
+		if (order == 0) {
+			order = id.compareTo(node.id());
+		}
+		if (order == 0) {
+			return merge(node.left(), node.right());
+		}
+		return order < 0
+				? node.with(delete(node.left(), fromDate, id), node.right())
+				: node.with(node.left(), delete(node.right(), fromDate, id));
+	}
+
+	/**
+	 * @return the nodes of both, where all nodes of {@code left} are ordered before those of {@code right}
+	 */
+	private static Node merge(Node left, Node right) {
+		if (left == null) {
+			return right;
+		}
+		if (right == null) {
+			return left;
+		}
+		return left.priority() > right.priority()
+				? left.with(left.left(), merge(left.right(), right))
+				: right.with(merge(left, right.left()), right.right());
+	}
+
+	private record Node(LocalDate fromDate, UUID id, LocalDate toDate, LeaveRequest leaveRequest, int priority,
+			Node left, Node right, LocalDate maxToDate) {
+
+		Node with(Node left, Node right) {
+			LocalDate maxToDate = toDate;
+			if (left != null && left.maxToDate().isAfter(maxToDate)) {
+				maxToDate = left.maxToDate();
+			}
+			if (right != null && right.maxToDate().isAfter(maxToDate)) {
+				maxToDate = right.maxToDate();
+			}
+			return new Node(fromDate, id, toDate, leaveRequest, priority, left, right, maxToDate);
+		}
+
+	}
+
+}
@@ -0,0 +1,14 @@
+package com.jdriven.leaverequest;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+class LeaveRequestOverlapException extends RuntimeException {
+
+	LeaveRequestOverlapException(LeaveRequest requested, LeaveRequest overlapping) {
+		super("Leave of " + requested.getEmployee() + " from " + requested.getFromDate() + " to "
+				+ requested.getToDate() + " overlaps leave request " + overlapping.getId());
+	}
+
+}
@@ -1,36 +1,187 @@
 package com.jdriven.leaverequest;
 
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.jdriven.leaverequest.LeaveRequest.Status;
 
 import org.springframework.stereotype.Repository;
+import org.springframework.util.Assert;
 
+/**
+ * Keeps leave requests by id, and indexes them by employee on save, so finding the leave requests of an employee only
+ * touches their own. Leave requests that were not denied are also indexed by the dates they span. All maps and
+ * indexes are safe to read while other threads save; saves and clears are serialized, to keep the indexes in line with
+ * the leave requests.
+ */
 @Repository
 class LeaveRequestRepository {
 
-	private final Map<UUID, LeaveRequest> leaveRequests = new TreeMap<>();
+	private final ConcurrentNavigableMap<UUID, LeaveRequest> leaveRequests = new ConcurrentSkipListMap<>();
+
+	private final ConcurrentMap<String, ConcurrentNavigableMap<UUID, LeaveRequest>> leaveRequestsByEmployee =
+			new ConcurrentHashMap<>();
+
+	private final Object writeLock = new Object();
+
+	/**
+	 * The employee each leave request is indexed under, which may differ from its current employee once changed.
+	 */
+	private final Map<UUID, String> indexedEmployees = new HashMap<>();
+
+	private final LeaveRequestIntervalIndex intervals = new LeaveRequestIntervalIndex();
 
 	public LeaveRequest save(LeaveRequest leaveRequest) {
-		leaveRequests.put(leaveRequest.getId(), leaveRequest);
+		Assert.notNull(leaveRequest.getEmployee(), "Employee must not be null");
+		synchronized (writeLock) {
+			leaveRequestsByEmployee.computeIfAbsent(leaveRequest.getEmployee(), employee -> new ConcurrentSkipListMap<>())
+					.put(leaveRequest.getId(), leaveRequest);
+			leaveRequests.put(leaveRequest.getId(), leaveRequest);
+			String previousEmployee = indexedEmployees.put(leaveRequest.getId(), leaveRequest.getEmployee());
+			if (previousEmployee != null && !previousEmployee.equals(leaveRequest.getEmployee())) {
+				unindex(previousEmployee, leaveRequest.getId());
+			}
+			if (spansDates(leaveRequest)) {
+				intervals.put(leaveRequest);
+			}
+			else {
+				intervals.remove(leaveRequest.getId());
+			}
+		}
 		return leaveRequest;
 	}
 
+	/**
+	 * Sets the status of all leave requests found by the ids given under a single lock, so other saves see either
+	 * none or all of them updated. Leave requests no longer denied are checked for overlap against those saved,
+	 * including the others updated before them; those that overlap are left as they were, and the rest still updated.
+	 *
+	 * @return the leave requests updated, and those left as they were by the id given
+	 */
+	public StatusUpdate updateStatus(Collection<UUID> ids, Status status) {
+		synchronized (writeLock) {
+			List<LeaveRequest> updated = new ArrayList<>();
+			Map<UUID, LeaveRequest> overlapping = new LinkedHashMap<>();
+			ids.stream().distinct().map(leaveRequests::get).filter(Objects::nonNull).forEach(leaveRequest -> {
+				// Only denied leave requests are left out of the date index, and so may overlap others
+				if (status != Status.DENIED && leaveRequest.getStatus() == Status.DENIED
+						&& leaveRequest.getFromDate() != null && leaveRequest.getToDate() != null) {
+					Optional<LeaveRequest> other = findOverlappingOwn(leaveRequest);
+					if (other.isPresent()) {
+						overlapping.put(leaveRequest.getId(), other.get());
+						return;
+					}
+				}
+				leaveRequest.setStatus(status);
+				// Save again to update the date index, so the leave requests updated after are checked against it
+				save(leaveRequest);
+				updated.add(leaveRequest);
+			});
+			return new StatusUpdate(updated, overlapping);
+		}
+	}
+
+	/**
+	 * Saves the leave request, unless it overlaps another leave request of the same employee that was not denied.
+	 *
+	 * @return the leave request overlapping the one given, which then is not saved
+	 * @throws IllegalArgumentException when the leave request does not span a range of dates
+	 */
+	public Optional<LeaveRequest> saveUnlessOverlapping(LeaveRequest leaveRequest) {
+		Assert.notNull(leaveRequest.getFromDate(), "From date must not be null");
+		Assert.notNull(leaveRequest.getToDate(), "To date must not be null");
+		Assert.isTrue(!leaveRequest.getFromDate().isAfter(leaveRequest.getToDate()),
+				"From date must not be after to date");
+		synchronized (writeLock) {
+			Optional<LeaveRequest> overlapping = findOverlappingOwn(leaveRequest);
+			if (overlapping.isEmpty()) {
+				save(leaveRequest);
+			}
+			return overlapping;
+		}
+	}
+
 	public Optional<LeaveRequest> findById(UUID uuid) {
 		return Optional.ofNullable(leaveRequests.get(uuid));
 	}
 
 	public List<LeaveRequest> findByEmployee(String employee) {
-		return leaveRequests.values().stream()
-				.filter(lr -> lr.getEmployee().equals(employee))
-				.collect(Collectors.toList());
+		Map<UUID, LeaveRequest> found = leaveRequestsByEmployee.get(employee);
+		return found == null ? new ArrayList<>() : new ArrayList<>(found.values());
+	}
+
+	/**
+	 * @return the leave requests that were not denied spanning any date from {@code from} up to and including
+	 * {@code to}, in order of their from date
+	 */
+	public List<LeaveRequest> findOverlapping(LocalDate from, LocalDate to) {
+		return intervals.findOverlapping(from, to);
 	}
 
 	public List<LeaveRequest> findAll() {
 		return new ArrayList<>(leaveRequests.values());
 	}
 
+	/**
+	 * @return up to {@code limit} leave requests in order of their id, following the id given, or from the first
+	 */
+	public List<LeaveRequest> findAll(UUID after, int limit) {
+		Map<UUID, LeaveRequest> following = after == null ? leaveRequests : leaveRequests.tailMap(after, false);
+		return following.values().stream()
+				.limit(limit)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * @return all leave requests in order of their id, read one by one as the stream is consumed
+	 */
+	public Stream<LeaveRequest> streamAll() {
+		return leaveRequests.values().stream();
+	}
+
 	public void clear() {
-		leaveRequests.clear();
+		synchronized (writeLock) {
+			leaveRequests.clear();
+			leaveRequestsByEmployee.clear();
+			indexedEmployees.clear();
+			intervals.clear();
+		}
+	}
+
+	/**
+	 * @return a leave request of the same employee that was not denied, spanning any of the dates of the one given
+	 */
+	private Optional<LeaveRequest> findOverlappingOwn(LeaveRequest leaveRequest) {
+		return intervals.findOverlapping(leaveRequest.getFromDate(), leaveRequest.getToDate()).stream()
+				.filter(other -> other.getEmployee().equals(leaveRequest.getEmployee()))
+				.filter(other -> !other.getId().equals(leaveRequest.getId()))
+				.findFirst();
+	}
+
+	private static boolean spansDates(LeaveRequest leaveRequest) {
+		return leaveRequest.getStatus() != Status.DENIED
+				&& leaveRequest.getFromDate() != null
+				&& leaveRequest.getToDate() != null;
+	}
+
+	private void unindex(String employee, UUID id) {
+		leaveRequestsByEmployee.computeIfPresent(employee, (e, found) -> {
+			found.remove(id);
+			return found.isEmpty() ? null : found;
+		});
+	}
+
+	/**
+	 * @param updated the leave requests updated, in order of the ids given; ids not found are left out
+	 * @param overlapping the leave request each leave request left as it was would have overlapped, by its id
+	 */
+	record StatusUpdate(List<LeaveRequest> updated, Map<UUID, LeaveRequest> overlapping) {
 	}
 
 }
@@ -1,11 +1,14 @@
 package com.jdriven.leaverequest;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import com.jdriven.leaverequest.LeaveRequest.Status;
+import com.jdriven.leaverequest.LeaveRequestRepository.StatusUpdate;
 
 import org.springframework.security.access.prepost.PostAuthorize;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -27,7 +30,10 @@ class LeaveRequestService {
 				.fromDate(from)
 				.toDate(to)
 				.build();
-		return repo.save(leaveRequest);
+		repo.saveUnlessOverlapping(leaveRequest).ifPresent(overlapping -> {
+			throw new LeaveRequestOverlapException(leaveRequest, overlapping);
+		});
+		return leaveRequest;
 	}
 
 	@PreAuthorize("#employee == authentication.name or hasRole('HR')")
@@ -45,18 +51,63 @@ class LeaveRequestService {
 		return repo.findAll();
 	}
 
+	@RolesAllowed("HR")
+	public List<LeaveRequest> retrieveAll(UUID after, int limit) {
+		return repo.findAll(after, limit);
+	}
+
+	@RolesAllowed("HR")
+	public Stream<LeaveRequest> streamAll() {
+		return repo.streamAll();
+	}
+
+	@RolesAllowed("HR")
+	public List<LeaveRequest> retrieveOverlapping(LocalDate from, LocalDate to) {
+		return repo.findOverlapping(from, to);
+	}
+
 	@RolesAllowed("HR")
 	public Optional<LeaveRequest> approve(UUID id) {
-		Optional<LeaveRequest> found = repo.findById(id);
-		found.ifPresent(lr -> lr.setStatus(Status.APPROVED));
-		return found;
+		return updateStatus(id, Status.APPROVED);
 	}
 
 	@RolesAllowed("HR")
 	public Optional<LeaveRequest> deny(UUID id) {
-		Optional<LeaveRequest> found = repo.findById(id);
-		found.ifPresent(lr -> lr.setStatus(Status.DENIED));
-		return found;
+		return updateStatus(id, Status.DENIED);
+	}
+
+	/**
+	 * Approves all leave requests found by the ids given, authorizing once for all of them. Denied leave requests that
+	 * would then overlap another leave request of the same employee stay denied, without holding up the others.
+	 *
+	 * @return the leave requests approved, in order of the ids given, and those that overlap
+	 */
+	@RolesAllowed("HR")
+	public StatusUpdate approveAll(Collection<UUID> ids) {
+		return updateStatus(ids, Status.APPROVED);
+	}
+
+	/**
+	 * Denies all leave requests found by the ids given, authorizing once for all of them.
+	 *
+	 * @return the leave requests denied, in order of the ids given
+	 */
+	@RolesAllowed("HR")
+	public StatusUpdate denyAll(Collection<UUID> ids) {
+		return updateStatus(ids, Status.DENIED);
+	}
+
+	private StatusUpdate updateStatus(Collection<UUID> ids, Status status) {
+		return repo.updateStatus(ids, status);
+	}
+
+	private Optional<LeaveRequest> updateStatus(UUID id, Status status) {
+		StatusUpdate update = repo.updateStatus(List.of(id), status);
+		LeaveRequest overlapping = update.overlapping().get(id);
+		if (overlapping != null) {
+			throw new LeaveRequestOverlapException(repo.findById(id).orElseThrow(), overlapping);
+		}
+		return update.updated().stream().findFirst();
 	}
 
 }
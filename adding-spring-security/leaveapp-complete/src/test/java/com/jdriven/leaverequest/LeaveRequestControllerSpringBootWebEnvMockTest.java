@@ -1,6 +1,7 @@
 package com.jdriven.leaverequest;
 
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -12,15 +13,20 @@ import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import static com.jdriven.leaverequest.LeaveRequest.Status.APPROVED;
+import static com.jdriven.leaverequest.LeaveRequest.Status.DENIED;
 import static com.jdriven.leaverequest.LeaveRequest.Status.PENDING;
 import static java.time.LocalDate.of;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest(webEnvironment = WebEnvironment.MOCK)
@@ -54,6 +60,53 @@ class LeaveRequestControllerSpringBootWebEnvMockTest {
 							jsonPath("$.status").value("PENDING"));
 		}
 
+		@Test
+		void testRequestOverlapping() throws Exception {
+			repository.save(new LeaveRequest("Alice", of(2022, 11, 30), of(2022, 12, 3), PENDING));
+			mockmvc.perform(post("/request/{employee}", "Alice")
+					.param("from", "2022-12-03")
+					.param("to", "2022-12-05")
+					.with(jwt().jwt(builder -> builder.subject("Alice"))))
+					.andExpect(status().isConflict());
+		}
+
+		@Test
+		void testRequestFromAfterTo() throws Exception {
+			mockmvc.perform(post("/request/{employee}", "Alice")
+					.param("from", "2022-12-03")
+					.param("to", "2022-11-30")
+					.with(jwt().jwt(builder -> builder.subject("Alice"))))
+					.andExpect(status().isBadRequest());
+		}
+
+		@Test
+		void testApproveAllForbidden() throws Exception {
+			LeaveRequest saved = repository
+					.save(new LeaveRequest("Alice", of(2022, 11, 30), of(2022, 12, 3), PENDING));
+			mockmvc.perform(post("/approve")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content("[\"" + saved.getId() + "\"]")
+					.with(jwt().jwt(builder -> builder.subject("Alice"))))
+					.andExpect(status().isForbidden());
+			assertThat(saved.getStatus()).isSameAs(PENDING);
+		}
+
+		@Test
+		void testViewRangeForbidden() throws Exception {
+			mockmvc.perform(get("/view/range")
+					.param("from", "2022-12-01")
+					.param("to", "2022-12-31")
+					.with(jwt().jwt(builder -> builder.subject("Alice"))))
+					.andExpect(status().isForbidden());
+		}
+
+		@Test
+		void testViewAllStreamForbidden() throws Exception {
+			mockmvc.perform(get("/view/all/stream")
+					.with(jwt().jwt(builder -> builder.subject("Alice"))))
+					.andExpect(status().isForbidden());
+		}
+
 		@Test
 		void testViewRequest() throws Exception {
 			LeaveRequest saved = repository
@@ -116,6 +169,78 @@ class LeaveRequestControllerSpringBootWebEnvMockTest {
 							jsonPath("$.status").value("DENIED"));
 		}
 
+		@Test
+		void testApproveAll() throws Exception {
+			LeaveRequest saved = repository
+					.save(new LeaveRequest("Alice", of(2022, 11, 30), of(2022, 12, 3), PENDING));
+			UUID missing = UUID.randomUUID();
+			mockmvc.perform(post("/approve")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content("[\"" + missing + "\", \"" + saved.getId() + "\"]")
+					.with(jwt().authorities(new SimpleGrantedAuthority("ROLE_HR"))))
+					.andExpectAll(
+							status().isOk(),
+							content().contentType(MediaType.APPLICATION_JSON),
+							jsonPath("$.length()").value(2),
+							jsonPath("$[0].id").value(missing.toString()),
+							jsonPath("$[0].outcome").value("NOT_FOUND"),
+							jsonPath("$[0].leaveRequest").doesNotExist(),
+							jsonPath("$[1].id").value(saved.getId().toString()),
+							jsonPath("$[1].outcome").value("UPDATED"),
+							jsonPath("$[1].leaveRequest.status").value("APPROVED"));
+		}
+
+		@Test
+		void testApproveAllOverlapping() throws Exception {
+			repository.save(new LeaveRequest("Alice", of(2022, 11, 30), of(2022, 12, 3), APPROVED));
+			LeaveRequest denied = repository.save(new LeaveRequest("Alice", of(2022, 12, 3), of(2022, 12, 5), DENIED));
+			LeaveRequest pending = repository
+					.save(new LeaveRequest("Alice", of(2022, 12, 10), of(2022, 12, 11), PENDING));
+			mockmvc.perform(post("/approve")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content("[\"" + denied.getId() + "\", \"" + pending.getId() + "\"]")
+					.with(jwt().authorities(new SimpleGrantedAuthority("ROLE_HR"))))
+					.andExpectAll(
+							status().isOk(),
+							jsonPath("$[0].id").value(denied.getId().toString()),
+							jsonPath("$[0].outcome").value("CONFLICT"),
+							jsonPath("$[0].leaveRequest").doesNotExist(),
+							jsonPath("$[1].outcome").value("UPDATED"),
+							jsonPath("$[1].leaveRequest.status").value("APPROVED"));
+		}
+
+		@Test
+		void testApproveAllNullId() throws Exception {
+			mockmvc.perform(post("/approve")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content("[null]")
+					.with(jwt().authorities(new SimpleGrantedAuthority("ROLE_HR"))))
+					.andExpect(status().isBadRequest());
+		}
+
+		@Test
+		void testDenyAll() throws Exception {
+			LeaveRequest saved = repository
+					.save(new LeaveRequest("Alice", of(2022, 11, 30), of(2022, 12, 3), PENDING));
+			mockmvc.perform(post("/deny")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content("[\"" + saved.getId() + "\"]")
+					.with(jwt().authorities(new SimpleGrantedAuthority("ROLE_HR"))))
+					.andExpectAll(
+							status().isOk(),
+							jsonPath("$[0].outcome").value("UPDATED"),
+							jsonPath("$[0].leaveRequest.status").value("DENIED"));
+		}
+
+		@Test
+		void testApproveAllEmpty() throws Exception {
+			mockmvc.perform(post("/approve")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content("[]")
+					.with(jwt().authorities(new SimpleGrantedAuthority("ROLE_HR"))))
+					.andExpect(status().isBadRequest());
+		}
+
 		@Test
 		void testViewRequestMissing() throws Exception {
 			mockmvc.perform(get("/view/request/{id}", UUID.randomUUID())
@@ -136,6 +261,78 @@ class LeaveRequestControllerSpringBootWebEnvMockTest {
 							jsonPath("$[0].status").value("APPROVED"));
 		}
 
+		@Test
+		void testViewRange() throws Exception {
+			repository.save(new LeaveRequest("Alice", of(2022, 11, 30), of(2022, 12, 3), APPROVED));
+			repository.save(new LeaveRequest("Bob", of(2022, 12, 4), of(2022, 12, 5), PENDING));
+			mockmvc.perform(get("/view/range")
+					.param("from", "2022-12-01")
+					.param("to", "2022-12-03")
+					.with(jwt().authorities(new SimpleGrantedAuthority("ROLE_HR"))))
+					.andExpectAll(
+							status().isOk(),
+							content().contentType(MediaType.APPLICATION_JSON),
+							jsonPath("$.length()").value(1),
+							jsonPath("$[0].employee").value("Alice"));
+		}
+
+		@Test
+		void testViewAllPaged() throws Exception {
+			UUID[] ids = Stream.of("Alice", "Bob", "Carol")
+					.map(employee -> repository.save(new LeaveRequest(employee, of(2022, 11, 30), of(2022, 12, 3), PENDING)))
+					.map(LeaveRequest::getId)
+					.sorted()
+					.toArray(UUID[]::new);
+			mockmvc.perform(get("/view/all")
+					.param("limit", "2")
+					.with(jwt().authorities(new SimpleGrantedAuthority("ROLE_HR"))))
+					.andExpectAll(
+							status().isOk(),
+							content().contentType(MediaType.APPLICATION_JSON),
+							jsonPath("$.leaveRequests.length()").value(2),
+							jsonPath("$.leaveRequests[0].id").value(ids[0].toString()),
+							jsonPath("$.leaveRequests[1].id").value(ids[1].toString()),
+							jsonPath("$.next").value(ids[1].toString()));
+			mockmvc.perform(get("/view/all")
+					.param("limit", "2")
+					.param("after", ids[1].toString())
+					.with(jwt().authorities(new SimpleGrantedAuthority("ROLE_HR"))))
+					.andExpectAll(
+							status().isOk(),
+							jsonPath("$.leaveRequests.length()").value(1),
+							jsonPath("$.leaveRequests[0].id").value(ids[2].toString()),
+							jsonPath("$.next").doesNotExist());
+		}
+
+		@Test
+		void testViewAllPagedLimitTooLarge() throws Exception {
+			mockmvc.perform(get("/view/all")
+					.param("limit", "1001")
+					.with(jwt().authorities(new SimpleGrantedAuthority("ROLE_HR"))))
+					.andExpect(status().isBadRequest());
+		}
+
+		@Test
+		void testViewAllStream() throws Exception {
+			repository.save(new LeaveRequest("Alice", of(2022, 11, 30), of(2022, 12, 3), APPROVED));
+			repository.save(new LeaveRequest("Bob", of(2022, 11, 30), of(2022, 12, 3), PENDING));
+			MvcResult result = mockmvc.perform(get("/view/all/stream")
+					.with(jwt().authorities(new SimpleGrantedAuthority("ROLE_HR"))))
+					.andExpect(request().asyncStarted())
+					.andReturn();
+			String body = mockmvc.perform(asyncDispatch(result))
+					.andExpectAll(
+							status().isOk(),
+							content().contentType(MediaType.APPLICATION_NDJSON))
+					.andReturn().getResponse().getContentAsString();
+			assertThat(body.split("\n"))
+					.hasSize(2)
+					.allSatisfy(line -> assertThat(line).startsWith("{").endsWith("}"))
+					.anySatisfy(line -> assertThat(line).contains("\"employee\":\"Alice\""))
+					.anySatisfy(line -> assertThat(line).contains("\"employee\":\"Bob\""));
+			assertThat(body).endsWith("\n");
+		}
+
 	}
 
 }
@@ -0,0 +1,69 @@
+package com.jdriven.leaverequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import static com.jdriven.leaverequest.LeaveRequest.Status.PENDING;
+import static java.time.LocalDate.of;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LeaveRequestIntervalIndexTest {
+
+	private final LeaveRequestIntervalIndex index = new LeaveRequestIntervalIndex();
+
+	@Test
+	void testFindOverlapping() {
+		LeaveRequest november = put(of(2022, 11, 1), of(2022, 11, 30));
+		LeaveRequest december = put(of(2022, 12, 1), of(2022, 12, 3));
+		put(of(2023, 1, 1), of(2023, 1, 2));
+		assertThat(index.findOverlapping(of(2022, 11, 30), of(2022, 12, 1))).containsExactly(november, december);
+		assertThat(index.findOverlapping(of(2022, 12, 3), of(2022, 12, 31))).containsExactly(december);
+		assertThat(index.findOverlapping(of(2022, 12, 4), of(2022, 12, 31))).isEmpty();
+	}
+
+	@Test
+	void testPutChangedDates() {
+		LeaveRequest leaveRequest = put(of(2022, 11, 30), of(2022, 12, 3));
+		leaveRequest.setFromDate(of(2023, 1, 1));
+		leaveRequest.setToDate(of(2023, 1, 2));
+		index.put(leaveRequest);
+		assertThat(index.findOverlapping(of(2022, 12, 1), of(2022, 12, 1))).isEmpty();
+		assertThat(index.findOverlapping(of(2023, 1, 2), of(2023, 1, 2))).containsExactly(leaveRequest);
+	}
+
+	@Test
+	void testFindOverlappingMatchesScan() {
+		Random random = new Random(42);
+		LocalDate start = of(2022, 1, 1);
+		List<LeaveRequest> indexed = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			LocalDate from = start.plusDays(random.nextInt(365));
+			indexed.add(put(from, from.plusDays(random.nextInt(random.nextInt(10) == 0 ? 200 : 10))));
+			if (random.nextInt(4) == 0) {
+				index.remove(indexed.remove(random.nextInt(indexed.size())).getId());
+			}
+		}
+		for (int i = 0; i < 500; i++) {
+			LocalDate from = start.plusDays(random.nextInt(400) - 20);
+			LocalDate to = from.plusDays(random.nextInt(30));
+			List<LeaveRequest> expected = indexed.stream()
+					.filter(lr -> !lr.getFromDate().isAfter(to) && !lr.getToDate().isBefore(from))
+					.sorted(Comparator.comparing(LeaveRequest::getFromDate).thenComparing(LeaveRequest::getId))
+					.collect(Collectors.toList());
+			assertThat(index.findOverlapping(from, to)).containsExactlyElementsOf(expected);
+		}
+	}
+
+	private LeaveRequest put(LocalDate from, LocalDate to) {
+		LeaveRequest leaveRequest = new LeaveRequest("Alice", from, to, PENDING);
+		index.put(leaveRequest);
+		return leaveRequest;
+	}
+
+}
@@ -0,0 +1,87 @@
+package com.jdriven.leaverequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static com.jdriven.leaverequest.LeaveRequest.Status.PENDING;
+import static java.time.LocalDate.of;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LeaveRequestRepositoryTest {
+
+	private final LeaveRequestRepository repository = new LeaveRequestRepository();
+
+	@Test
+	void testFindByEmployee() {
+		LeaveRequest alice = repository.save(new LeaveRequest("Alice", of(2022, 11, 30), of(2022, 12, 03), PENDING));
+		repository.save(new LeaveRequest("Bob", of(2022, 11, 30), of(2022, 12, 03), PENDING));
+		assertThat(repository.findByEmployee("Alice")).containsExactly(alice);
+		assertThat(repository.findByEmployee("Carol")).isEmpty();
+	}
+
+	@Test
+	void testSaveForAnotherEmployee() {
+		LeaveRequest leaveRequest = repository
+				.save(new LeaveRequest("Alice", of(2022, 11, 30), of(2022, 12, 03), PENDING));
+		leaveRequest.setEmployee("Bob");
+		repository.save(leaveRequest);
+		assertThat(repository.findByEmployee("Alice")).isEmpty();
+		assertThat(repository.findByEmployee("Bob")).containsExactly(leaveRequest);
+		assertThat(repository.findAll()).containsExactly(leaveRequest);
+	}
+
+	@Test
+	void testSaveUnlessOverlappingRequiresRange() {
+		assertThrows(IllegalArgumentException.class,
+				() -> repository.saveUnlessOverlapping(new LeaveRequest("Alice", null, of(2022, 12, 03), PENDING)));
+		assertThrows(IllegalArgumentException.class,
+				() -> repository.saveUnlessOverlapping(new LeaveRequest("Alice", of(2022, 11, 30), null, PENDING)));
+		assertThrows(IllegalArgumentException.class, () -> repository
+				.saveUnlessOverlapping(new LeaveRequest("Alice", of(2022, 12, 03), of(2022, 11, 30), PENDING)));
+		assertThat(repository.findAll()).isEmpty();
+		assertThat(repository
+				.saveUnlessOverlapping(new LeaveRequest("Alice", of(2022, 11, 30), of(2022, 11, 30), PENDING)))
+				.isEmpty();
+	}
+
+	@Test
+	void testConcurrentSavesAndReads() throws Exception {
+		int employees = 8;
+		int requestsPerEmployee = 500;
+		ExecutorService executor = Executors.newFixedThreadPool(employees * 2);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int e = 0; e < employees; e++) {
+			String employee = "employee" + e;
+			futures.add(executor.submit(() -> {
+				for (int i = 0; i < requestsPerEmployee; i++) {
+					repository.save(new LeaveRequest(employee, of(2022, 11, 30), of(2022, 12, 03), PENDING));
+				}
+			}));
+			futures.add(executor.submit(() -> {
+				for (int i = 0; i < requestsPerEmployee; i++) {
+					assertThat(repository.findByEmployee(employee))
+							.allSatisfy(leaveRequest -> assertThat(leaveRequest.getEmployee()).isEqualTo(employee));
+					assertThat(repository.findAll()).doesNotContainNull();
+				}
+			}));
+		}
+		executor.shutdown();
+		assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+		for (Future<?> future : futures) {
+			future.get();
+		}
+
+		assertThat(repository.findAll()).hasSize(employees * requestsPerEmployee);
+		for (int e = 0; e < employees; e++) {
+			assertThat(repository.findByEmployee("employee" + e)).hasSize(requestsPerEmployee);
+		}
+	}
+
+}
@@ -4,6 +4,8 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import com.jdriven.leaverequest.LeaveRequestRepository.StatusUpdate;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -18,6 +20,8 @@ import static com.jdriven.leaverequest.LeaveRequest.Status.DENIED;
 import static com.jdriven.leaverequest.LeaveRequest.Status.PENDING;
 import static java.time.LocalDate.of;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.verify;
 
 @SpringBootTest(webEnvironment = WebEnvironment.NONE)
@@ -44,6 +48,30 @@ class LeaveRequestServiceTest {
 			verify(repository).save(leaveRequest);
 		}
 
+		@Test
+		void testRequestOverlapping() {
+			LeaveRequest saved = repository
+					.save(new LeaveRequest("Alice", of(2022, 11, 30), of(2022, 12, 03), PENDING));
+			assertThrows(LeaveRequestOverlapException.class,
+					() -> service.request("Alice", of(2022, 12, 03), of(2022, 12, 05)));
+			assertThat(repository.findByEmployee("Alice")).containsExactly(saved);
+		}
+
+		@Test
+		void testRequestOverlappingDenied() {
+			repository.save(new LeaveRequest("Alice", of(2022, 11, 30), of(2022, 12, 03), DENIED));
+			LeaveRequest leaveRequest = service.request("Alice", of(2022, 12, 03), of(2022, 12, 05));
+			verify(repository).save(leaveRequest);
+		}
+
+		@Test
+		void testRequestInvalidRange() {
+			assertThrows(IllegalArgumentException.class,
+					() -> service.request("Alice", of(2022, 12, 05), of(2022, 12, 03)));
+			assertThrows(IllegalArgumentException.class, () -> service.request("Alice", null, of(2022, 12, 03)));
+			assertThat(repository.findByEmployee("Alice")).isEmpty();
+		}
+
 		@Test
 		void testRetrieveById() {
 			LeaveRequest saved = repository
@@ -106,7 +134,7 @@ class LeaveRequestServiceTest {
 			LeaveRequest saved = repository
 					.save(new LeaveRequest("Alice", of(2022, 11, 30), of(2022, 12, 03), PENDING));
 			Optional<LeaveRequest> approved = service.approve(saved.getId());
-			verify(repository).findById(saved.getId());
+			verify(repository).updateStatus(List.of(saved.getId()), APPROVED);
 			assertThat(approved).isPresent();
 			assertThat(approved).get().isSameAs(saved);
 			assertThat(approved.get().getStatus()).isSameAs(APPROVED);
@@ -117,10 +145,72 @@ class LeaveRequestServiceTest {
 			LeaveRequest saved = repository
 					.save(new LeaveRequest("Alice", of(2022, 11, 30), of(2022, 12, 03), PENDING));
 			Optional<LeaveRequest> denied = service.deny(saved.getId());
-			verify(repository).findById(saved.getId());
+			verify(repository).updateStatus(List.of(saved.getId()), DENIED);
 			assertThat(denied).isPresent();
 			assertThat(denied).get().isSameAs(saved);
 			assertThat(denied.get().getStatus()).isSameAs(DENIED);
+			assertThat(service.retrieveOverlapping(of(2022, 12, 01), of(2022, 12, 01))).isEmpty();
+		}
+
+		@Test
+		void testApproveAll() {
+			LeaveRequest alice = repository
+					.save(new LeaveRequest("Alice", of(2022, 11, 30), of(2022, 12, 03), PENDING));
+			LeaveRequest bob = repository.save(new LeaveRequest("Bob", of(2022, 11, 30), of(2022, 12, 03), PENDING));
+			UUID missing = UUID.randomUUID();
+			List<LeaveRequest> approved = service.approveAll(List.of(bob.getId(), missing, alice.getId())).updated();
+			verify(repository).updateStatus(List.of(bob.getId(), missing, alice.getId()), APPROVED);
+			assertThat(approved).containsExactly(bob, alice);
+			assertThat(approved).extracting(LeaveRequest::getStatus).containsOnly(APPROVED);
+		}
+
+		@Test
+		void testApproveDeniedOverlappingApproved() {
+			LeaveRequest approved = repository
+					.save(new LeaveRequest("Alice", of(2022, 11, 30), of(2022, 12, 03), APPROVED));
+			LeaveRequest denied = repository
+					.save(new LeaveRequest("Alice", of(2022, 12, 03), of(2022, 12, 05), DENIED));
+			assertThrows(LeaveRequestOverlapException.class, () -> service.approve(denied.getId()));
+			StatusUpdate update = service.approveAll(List.of(denied.getId()));
+			assertThat(update.updated()).isEmpty();
+			assertThat(update.overlapping()).containsExactly(entry(denied.getId(), approved));
+			assertThat(denied.getStatus()).isSameAs(DENIED);
+			assertThat(service.retrieveOverlapping(of(2022, 12, 01), of(2022, 12, 05))).containsExactly(approved);
+		}
+
+		@Test
+		void testApproveAllDeniedOverlappingEachOther() {
+			LeaveRequest pending = repository
+					.save(new LeaveRequest("Alice", of(2022, 12, 10), of(2022, 12, 11), PENDING));
+			LeaveRequest first = repository
+					.save(new LeaveRequest("Alice", of(2022, 11, 30), of(2022, 12, 03), DENIED));
+			LeaveRequest second = repository
+					.save(new LeaveRequest("Alice", of(2022, 12, 03), of(2022, 12, 05), DENIED));
+			StatusUpdate update = service.approveAll(List.of(pending.getId(), first.getId(), second.getId()));
+			assertThat(update.updated()).containsExactly(pending, first);
+			assertThat(update.overlapping()).containsExactly(entry(second.getId(), first));
+			assertThat(List.of(pending, first, second)).extracting(LeaveRequest::getStatus)
+					.containsExactly(APPROVED, APPROVED, DENIED);
+		}
+
+		@Test
+		void testDenyAll() {
+			LeaveRequest saved = repository
+					.save(new LeaveRequest("Alice", of(2022, 11, 30), of(2022, 12, 03), PENDING));
+			List<LeaveRequest> denied = service.denyAll(List.of(saved.getId(), saved.getId())).updated();
+			assertThat(denied).containsExactly(saved);
+			assertThat(saved.getStatus()).isSameAs(DENIED);
+			assertThat(service.retrieveOverlapping(of(2022, 12, 01), of(2022, 12, 01))).isEmpty();
+		}
+
+		@Test
+		void testRetrieveOverlapping() {
+			LeaveRequest saved = repository
+					.save(new LeaveRequest("Alice", of(2022, 11, 30), of(2022, 12, 03), PENDING));
+			repository.save(new LeaveRequest("Bob", of(2022, 12, 04), of(2022, 12, 05), PENDING));
+			List<LeaveRequest> retrieved = service.retrieveOverlapping(of(2022, 12, 01), of(2022, 12, 03));
+			verify(repository).findOverlapping(of(2022, 12, 01), of(2022, 12, 03));
+			assertThat(retrieved).containsExactly(saved);
 		}
 
 		@Test
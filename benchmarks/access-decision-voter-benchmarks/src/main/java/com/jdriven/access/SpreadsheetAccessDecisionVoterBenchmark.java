@@ -0,0 +1,107 @@
+package com.jdriven.access;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.jdriven.model.Spreadsheet;
+import com.jdriven.service.SpreadsheetService;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.SecurityConfig;
+import org.springframework.security.util.SimpleMethodInvocation;
+
+/**
+ * {@link SpreadsheetAccessDecisionVoter#vote} for {@link SpreadsheetService#read(Spreadsheet)} and
+ * {@link SpreadsheetService#readById(Long)}, half of them granted, against stores of increasing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SpreadsheetAccessDecisionVoterBenchmark {
+
+	private final List<ConfigAttribute> attributes = SecurityConfig.createList(Spreadsheet.class.getName());
+
+	private final SpreadsheetService service = new SpreadsheetService();
+
+	private Method read;
+
+	private Method readById;
+
+	@Param({ "1000", "100000", "10000000" })
+	private int grants;
+
+	/**
+	 * Maximum number of decisions cached, where {@code 0} disables the cache.
+	 */
+	@Param({ "0", "100000" })
+	private int cacheSize;
+
+	private SpreadsheetAccessDecisionVoter voter;
+
+	@Setup
+	public void setup() throws NoSuchMethodException {
+		SpreadsheetAccessStore store = new SpreadsheetAccessStore(event -> {
+		});
+		SpreadsheetAccessGrants.populate(store, grants);
+		voter = new SpreadsheetAccessDecisionVoter(store,
+				new SpreadsheetAccessDecisionCache(Duration.ofMinutes(1), cacheSize),
+				new DenialLog(Duration.ofMinutes(1), 10));
+		read = SpreadsheetService.class.getMethod("read", Spreadsheet.class);
+		readById = SpreadsheetService.class.getMethod("readById", Long.class);
+	}
+
+	@State(Scope.Thread)
+	public static class Probes {
+
+		private SpreadsheetAccessGrants.Probes probes;
+
+		private MethodInvocation[] reads;
+
+		private MethodInvocation[] readsById;
+
+		@Setup
+		public void setup(SpreadsheetAccessDecisionVoterBenchmark benchmark, ThreadParams threadParams) {
+			probes = new SpreadsheetAccessGrants.Probes(benchmark.grants, threadParams.getThreadIndex());
+			// Invocations are created upfront, so the allocation profiled is that of the vote alone
+			reads = new MethodInvocation[SpreadsheetAccessGrants.PROBES];
+			readsById = new MethodInvocation[SpreadsheetAccessGrants.PROBES];
+			for (int i = 0; i < reads.length; i++) {
+				reads[i] = new SimpleMethodInvocation(benchmark.service, benchmark.read, probes.spreadsheets[i]);
+				readsById[i] = new SimpleMethodInvocation(benchmark.service, benchmark.readById,
+						probes.spreadsheets[i].getId());
+			}
+		}
+
+	}
+
+	@Benchmark
+	public int vote(Probes probes) {
+		int i = probes.probes.next();
+		return voter.vote(probes.probes.authentications[i], probes.reads[i], attributes);
+	}
+
+	@Benchmark
+	public int voteById(Probes probes) {
+		int i = probes.probes.next();
+		return voter.vote(probes.probes.authentications[i], probes.readsById[i], attributes);
+	}
+
+}
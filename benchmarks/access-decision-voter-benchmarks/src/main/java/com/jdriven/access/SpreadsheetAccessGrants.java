@@ -0,0 +1,78 @@
+package com.jdriven.access;
+
+import java.util.Collections;
+import java.util.SplittableRandom;
+
+import com.jdriven.model.Spreadsheet;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * Synthetic access for benchmarks: every user has access to {@value #SPREADSHEETS_PER_USER} spreadsheets of their own,
+ * so stores of different sizes differ in the number of users.
+ */
+final class SpreadsheetAccessGrants {
+
+	static final int SPREADSHEETS_PER_USER = 100;
+
+	static final int PROBES = 1024;
+
+	private SpreadsheetAccessGrants() {
+	}
+
+	static void populate(SpreadsheetAccessStore store, int grants) {
+		for (int u = 0; u < users(grants); u++) {
+			User user = user(u);
+			for (int s = 0; s < SPREADSHEETS_PER_USER; s++) {
+				store.grant(new SpreadsheetAccess(user, spreadsheet((long) u * SPREADSHEETS_PER_USER + s)));
+			}
+		}
+	}
+
+	static int users(int grants) {
+		return Math.max(1, grants / SPREADSHEETS_PER_USER);
+	}
+
+	static User user(int index) {
+		return new User("user" + index, "", Collections.emptyList());
+	}
+
+	static Authentication authentication(int index) {
+		return UsernamePasswordAuthenticationToken.authenticated(user(index), null, Collections.emptyList());
+	}
+
+	static Spreadsheet spreadsheet(long id) {
+		return new Spreadsheet(id, "spreadsheet " + id);
+	}
+
+	/**
+	 * Probes for {@value #PROBES} checks by random users, alternating between a spreadsheet the user has access to and
+	 * one they have not.
+	 */
+	static final class Probes {
+
+		final Authentication[] authentications = new Authentication[PROBES];
+		final Spreadsheet[] spreadsheets = new Spreadsheet[PROBES];
+		private int next;
+
+		Probes(int grants, long seed) {
+			SplittableRandom random = new SplittableRandom(seed);
+			int users = users(grants);
+			for (int i = 0; i < PROBES; i++) {
+				int user = random.nextInt(users);
+				int owner = i % 2 == 0 ? user : (user + 1 + random.nextInt(Math.max(1, users - 1))) % users;
+				authentications[i] = authentication(user);
+				spreadsheets[i] = spreadsheet((long) owner * SPREADSHEETS_PER_USER
+						+ random.nextInt(SPREADSHEETS_PER_USER));
+			}
+		}
+
+		int next() {
+			return next++ & (PROBES - 1);
+		}
+
+	}
+
+}
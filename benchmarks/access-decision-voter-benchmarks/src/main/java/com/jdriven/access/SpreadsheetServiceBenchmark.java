@@ -0,0 +1,81 @@
+package com.jdriven.access;
+
+import java.util.concurrent.TimeUnit;
+
+import com.jdriven.AccessDecisionApplication;
+import com.jdriven.model.Spreadsheet;
+import com.jdriven.service.SpreadsheetService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * The proxied {@link SpreadsheetService#read(Spreadsheet)}, checked through {@code @Secured} and either the
+ * {@link SpreadsheetAccessAuthorizationManager} or the legacy {@link SpreadsheetAccessDecisionVoter}, for a user with
+ * access to the spreadsheet among the synthetic {@link SpreadsheetAccessGrants} of other users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SpreadsheetServiceBenchmark {
+
+	private final Spreadsheet spreadsheet = SpreadsheetAccessGrants.spreadsheet(0L);
+
+	@Param({ "1000", "100000", "10000000" })
+	private int grants;
+
+	@Param({ "false", "true" })
+	private boolean legacyVoter;
+
+	private ConfigurableApplicationContext context;
+
+	private SpreadsheetService service;
+
+	@Setup
+	public void setup() {
+		context = new SpringApplicationBuilder(AccessDecisionApplication.class)
+				.web(WebApplicationType.NONE)
+				.logStartupInfo(false)
+				.run("--logging.level.root=WARN", "--spreadsheet.access.legacy-voter=" + legacyVoter);
+		SpreadsheetAccessGrants.populate(context.getBean(SpreadsheetAccessStore.class), grants);
+		service = context.getBean(SpreadsheetService.class);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@State(Scope.Thread)
+	public static class Authenticated {
+
+		@Setup
+		public void setup() {
+			SecurityContextHolder.getContext().setAuthentication(SpreadsheetAccessGrants.authentication(0));
+		}
+
+	}
+
+	@Benchmark
+	public void read(Authenticated authenticated) {
+		service.read(spreadsheet);
+	}
+
+}
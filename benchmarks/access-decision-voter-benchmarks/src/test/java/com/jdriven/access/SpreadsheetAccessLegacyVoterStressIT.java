@@ -0,0 +1,11 @@
+package com.jdriven.access;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Runs the same workload as {@link SpreadsheetAccessStressIT}, through the legacy voter chain.
+ */
+@SpringBootTest(properties = { "logging.level.com.jdriven.service=WARN", "spreadsheet.access.legacy-voter=true" })
+class SpreadsheetAccessLegacyVoterStressIT extends SpreadsheetAccessStressIT {
+
+}
@@ -0,0 +1,82 @@
+package com.jdriven.access;
+
+import java.util.Collections;
+
+import com.jdriven.service.SpreadsheetService;
+import com.jdriven.stress.StressHarness;
+import com.jdriven.stress.StressReport;
+import com.jdriven.stress.StressTarget;
+import com.jdriven.stress.StressWorkload;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Grants and revokes access through the {@link SpreadsheetAccessStore}, while checking access through the secured
+ * {@link SpreadsheetService#readById(Long)}, and with that the {@link SpreadsheetAccessDecisionCache}, from many
+ * threads at once.
+ */
+@SpringBootTest(properties = "logging.level.com.jdriven.service=WARN")
+class SpreadsheetAccessStressIT {
+
+	private static final Logger log = LoggerFactory.getLogger(SpreadsheetAccessStressIT.class);
+
+	private static final long FIRST_SPREADSHEET = 1_000_000L;
+
+	@Autowired
+	private SpreadsheetAccessStore store;
+
+	@Autowired
+	private SpreadsheetService service;
+
+	@Test
+	void testConcurrentAccessChecksAreLinearizable() {
+		StressWorkload workload = StressWorkload.fromSystemProperties();
+		Authentication[] authentications = new Authentication[workload.users()];
+		for (int i = 0; i < authentications.length; i++) {
+			User user = new User("stress-" + i, "", Collections.emptyList());
+			authentications[i] = UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities());
+		}
+
+		StressReport report = StressHarness.run(workload, new StressTarget() {
+			@Override
+			public void grant(int user, int spreadsheet) {
+				store.grant(authentications[user].getName(), FIRST_SPREADSHEET + spreadsheet);
+			}
+
+			@Override
+			public void revoke(int user, int spreadsheet) {
+				store.revoke(authentications[user].getName(), FIRST_SPREADSHEET + spreadsheet);
+			}
+
+			@Override
+			public boolean check(int user, int spreadsheet) {
+				SecurityContextHolder.getContext().setAuthentication(authentications[user]);
+				try {
+					service.readById(FIRST_SPREADSHEET + spreadsheet);
+					return true;
+				}
+				catch (AccessDeniedException e) {
+					return false;
+				}
+			}
+		});
+		log.info("{}", report);
+
+		assertThat(report.checks().count()).isPositive();
+		assertThat(report.writes().count()).isPositive();
+		assertThat(report.sampleErrors()).isEmpty();
+		assertThat(report.sampleViolations()).isEmpty();
+	}
+
+}
@@ -0,0 +1,153 @@
+package com.jdriven.leaverequest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Approves {@value #APPROVALS} leave requests over HTTP as HR, either through one {@code /approve/{id}} request per
+ * leave request, or through a single {@code /approve} request for all of them.
+ * <p>
+ * Each request carries a JWT signed with a key pair generated at setup, which the application decodes and verifies
+ * against the public key, rather than against the keys of an issuer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class LeaveRequestApprovalBenchmark {
+
+	static final int APPROVALS = 10_000;
+
+	private final HttpClient client = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.build();
+
+	private Path publicKey;
+
+	private ConfigurableApplicationContext context;
+
+	private URI baseUri;
+
+	private String authorization;
+
+	private List<UUID> ids;
+
+	private String idsJson;
+
+	@Setup
+	public void setup() throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		KeyPair keyPair = generator.generateKeyPair();
+		publicKey = Files.createTempFile("leaveapp-benchmark", ".pub");
+		Files.writeString(publicKey, "-----BEGIN PUBLIC KEY-----\n"
+				+ Base64.getMimeEncoder().encodeToString(keyPair.getPublic().getEncoded())
+				+ "\n-----END PUBLIC KEY-----\n");
+
+		context = new SpringApplicationBuilder(LeaveRequestApplication.class)
+				.logStartupInfo(false)
+				// Skip the application.yml of the sample, which decodes tokens through the keys of its issuer
+				.run("--spring.config.name=leaveapp-benchmark", "--logging.level.root=WARN", "--server.port=0",
+						"--spring.security.oauth2.resourceserver.jwt.public-key-location=" + publicKey.toUri());
+		baseUri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+		authorization = "Bearer " + token((RSAPrivateKey) keyPair.getPrivate());
+
+		LeaveRequestRepository repository = context.getBean(LeaveRequestRepository.class);
+		ids = new ArrayList<>(APPROVALS);
+		LocalDate from = LocalDate.of(2022, 12, 1);
+		for (int i = 0; i < APPROVALS; i++) {
+			LeaveRequest leaveRequest = new LeaveRequest("employee" + i, from, from.plusDays(i % 14),
+					LeaveRequest.Status.PENDING);
+			ids.add(repository.save(leaveRequest).getId());
+		}
+		idsJson = ids.stream()
+				.map(id -> '"' + id.toString() + '"')
+				.collect(Collectors.joining(",", "[", "]"));
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		context.close();
+		Files.deleteIfExists(publicKey);
+	}
+
+	@Benchmark
+	public void approveEach() throws Exception {
+		for (UUID id : ids) {
+			send(HttpRequest.newBuilder(baseUri.resolve("/approve/" + id))
+					.POST(BodyPublishers.noBody()), 202);
+		}
+	}
+
+	@Benchmark
+	public void approveBatch() throws Exception {
+		send(HttpRequest.newBuilder(baseUri.resolve("/approve"))
+				.header("Content-Type", "application/json")
+				.POST(BodyPublishers.ofString(idsJson)), 200);
+	}
+
+	private void send(HttpRequest.Builder request, int expectedStatus) throws Exception {
+		int status = client.send(request.header("Authorization", authorization).build(), BodyHandlers.discarding())
+				.statusCode();
+		if (status != expectedStatus) {
+			throw new IllegalStateException("Expected status " + expectedStatus + " but was " + status);
+		}
+	}
+
+	private static String token(RSAPrivateKey privateKey) throws JOSEException {
+		Instant now = Instant.now();
+		JWTClaimsSet claims = new JWTClaimsSet.Builder()
+				.subject("hr")
+				.claim("realm_access", Map.of("roles", List.of("HR")))
+				.issueTime(Date.from(now))
+				.expirationTime(Date.from(now.plus(1, ChronoUnit.DAYS)))
+				.build();
+		SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.RS256), claims);
+		jwt.sign(new RSASSASigner(privateKey));
+		return jwt.serialize();
+	}
+
+}
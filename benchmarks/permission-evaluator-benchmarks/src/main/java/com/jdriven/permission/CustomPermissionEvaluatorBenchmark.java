@@ -0,0 +1,74 @@
+package com.jdriven.permission;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.jdriven.model.Spreadsheet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * Both {@code hasPermission} overloads of the {@link CustomPermissionEvaluator}, half of them granted, against stores
+ * of increasing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CustomPermissionEvaluatorBenchmark {
+
+	private static final String SPREADSHEET_TYPE = Spreadsheet.class.getName();
+
+	@Param({ "1000", "100000", "10000000" })
+	private int grants;
+
+	private CustomPermissionEvaluator evaluator;
+
+	@Setup
+	public void setup() {
+		SpreadsheetPermissionStore store = new BitmaskSpreadsheetPermissionStore();
+		SpreadsheetGrants.populate(store, grants);
+		evaluator = new CustomPermissionEvaluator(List.of(new SpreadsheetPermissionResolver(store)),
+				new DenialLog(Duration.ofMinutes(1), 10));
+	}
+
+	@State(Scope.Thread)
+	public static class Probes {
+
+		private SpreadsheetGrants.Probes probes;
+
+		@Setup
+		public void setup(CustomPermissionEvaluatorBenchmark benchmark, ThreadParams threadParams) {
+			probes = new SpreadsheetGrants.Probes(benchmark.grants, threadParams.getThreadIndex());
+		}
+
+	}
+
+	@Benchmark
+	public boolean hasPermission(Probes probes) {
+		int i = probes.probes.next();
+		return evaluator.hasPermission(probes.probes.authentications[i], probes.probes.spreadsheets[i], "READ");
+	}
+
+	@Benchmark
+	public boolean hasPermissionById(Probes probes) {
+		int i = probes.probes.next();
+		return evaluator.hasPermission(probes.probes.authentications[i], probes.probes.spreadsheets[i].getId(),
+				SPREADSHEET_TYPE, "READ");
+	}
+
+}
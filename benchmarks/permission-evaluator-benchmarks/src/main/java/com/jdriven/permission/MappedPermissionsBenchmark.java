@@ -0,0 +1,60 @@
+package com.jdriven.permission;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Restarts a store on a snapshot file of the synthetic {@link SpreadsheetGrants}, written once up front.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class MappedPermissionsBenchmark {
+
+	@Param({ "1000000", "20000000" })
+	private int grants;
+
+	private Path directory;
+
+	@Setup
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("permissions");
+		BitmaskSpreadsheetPermissionStore store = new BitmaskSpreadsheetPermissionStore();
+		SpreadsheetGrants.populate(store, grants);
+		store.open(directory).close();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		FileSystemUtils.deleteRecursively(directory);
+	}
+
+	@Benchmark
+	public boolean open() throws IOException {
+		BitmaskSpreadsheetPermissionStore store = new BitmaskSpreadsheetPermissionStore();
+		try (Closeable files = store.open(directory)) {
+			return store.hasPermission("user0", 0L, "READ");
+		}
+	}
+
+}
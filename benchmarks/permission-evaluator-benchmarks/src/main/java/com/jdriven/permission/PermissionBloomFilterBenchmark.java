@@ -0,0 +1,88 @@
+package com.jdriven.permission;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * Checks against the store with and without a Bloom filter in front of the index, for spreadsheets the user holds no
+ * permission on, as when probing from list pages, and for an even mix of granted and denied spreadsheets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PermissionBloomFilterBenchmark {
+
+	@Param({ "100000", "10000000" })
+	private int grants;
+
+	@Param({ "false", "true" })
+	private boolean bloomFilter;
+
+	private BitmaskSpreadsheetPermissionStore store;
+
+	@Setup
+	public void setup() {
+		store = new BitmaskSpreadsheetPermissionStore();
+		SpreadsheetGrants.populate(store, grants);
+		if (bloomFilter) {
+			store.useBloomFilter(0.01);
+		}
+	}
+
+	@TearDown
+	public void report() {
+		if (bloomFilter) {
+			System.out.printf("%nBloom filter of %d KB, expected false positive rate %.4f, observed %.4f%n",
+					store.bloomFilterMemoryBytes() / 1024, store.bloomFilterExpectedFalsePositiveRate(),
+					(double) store.bloomFilterFalsePositives()
+							/ (store.bloomFilterFalsePositives() + store.bloomFilterNegatives()));
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Probes {
+
+		private SpreadsheetGrants.Probes probes;
+
+		private final String[] usernames = new String[SpreadsheetGrants.PROBES];
+
+		@Setup
+		public void setup(PermissionBloomFilterBenchmark benchmark, ThreadParams threadParams) {
+			probes = new SpreadsheetGrants.Probes(benchmark.grants, threadParams.getThreadIndex());
+			for (int i = 0; i < SpreadsheetGrants.PROBES; i++) {
+				usernames[i] = probes.authentications[i].getName();
+			}
+		}
+
+	}
+
+	@Benchmark
+	public boolean denied(Probes probes) {
+		// Every odd probe is for a spreadsheet of another user
+		int i = probes.probes.next() | 1;
+		return store.hasPermission(probes.usernames[i], probes.probes.spreadsheets[i].getId(), "READ");
+	}
+
+	@Benchmark
+	public boolean mixed(Probes probes) {
+		int i = probes.probes.next();
+		return store.hasPermission(probes.usernames[i], probes.probes.spreadsheets[i].getId(), "READ");
+	}
+
+}
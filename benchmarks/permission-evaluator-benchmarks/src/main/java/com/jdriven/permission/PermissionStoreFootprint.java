@@ -0,0 +1,98 @@
+package com.jdriven.permission;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.jdriven.model.Spreadsheet;
+
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * Measures the heap retained by {@code users * spreadsheetsPerUser * levels} grants, held either as a
+ * {@code HashSet<SpreadsheetPermission>} ({@code set}) or indexed by a {@link BitmaskSpreadsheetPermissionStore}
+ * ({@code bitmask}), excluding the {@link User} and {@link Spreadsheet} instances shared by the grants.
+ * <p>
+ * Measure each structure in a JVM of its own, with a heap large enough to hold it, as the used heap after a full
+ * garbage collection before and after building it.
+ */
+public final class PermissionStoreFootprint {
+
+	private static final String[] LEVELS = { "READ", "WRITE", "PRINT" };
+
+	private static final int SPREADSHEETS = 1_000_000;
+
+	private final User[] users;
+
+	private final Spreadsheet[] spreadsheets = new Spreadsheet[SPREADSHEETS];
+
+	private final int spreadsheetsPerUser;
+
+	private final int levels;
+
+	private PermissionStoreFootprint(int users, int spreadsheetsPerUser, int levels) {
+		this.users = new User[users];
+		for (int u = 0; u < users; u++) {
+			this.users[u] = new User("user" + u, "", Collections.emptyList());
+		}
+		for (int s = 0; s < SPREADSHEETS; s++) {
+			spreadsheets[s] = new Spreadsheet((long) s, "spreadsheet " + s);
+		}
+		this.spreadsheetsPerUser = spreadsheetsPerUser;
+		this.levels = levels;
+	}
+
+	public static void main(String[] args) {
+		if (args.length != 4) {
+			throw new IllegalArgumentException("Expected arguments: set|bitmask users spreadsheetsPerUser levels");
+		}
+		PermissionStoreFootprint footprint = new PermissionStoreFootprint(Integer.parseInt(args[1]),
+				Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+		long before = usedHeap();
+		Object retained = footprint.build(args[0]);
+		long after = usedHeap();
+		System.out.printf("%s: %d users, %d spreadsheets each, %d levels: %d MB (%d)%n", args[0],
+				footprint.users.length, footprint.spreadsheetsPerUser, footprint.levels,
+				(after - before) / (1024 * 1024), System.identityHashCode(retained));
+	}
+
+	private Object build(String structure) {
+		switch (structure) {
+			case "set" -> {
+				Set<SpreadsheetPermission> permissions = new HashSet<>();
+				for (int u = 0; u < users.length; u++) {
+					grants(u, permissions::add);
+				}
+				return permissions;
+			}
+			case "bitmask" -> {
+				BitmaskSpreadsheetPermissionStore store = new BitmaskSpreadsheetPermissionStore();
+				for (int u = 0; u < users.length; u++) {
+					int user = u;
+					store.update(changes -> grants(user, changes::grant));
+				}
+				return store;
+			}
+			default -> throw new IllegalArgumentException("Unknown structure " + structure);
+		}
+	}
+
+	private void grants(int user, Consumer<SpreadsheetPermission> grant) {
+		for (int s = 0; s < spreadsheetsPerUser; s++) {
+			Spreadsheet spreadsheet = spreadsheets[(user * spreadsheetsPerUser + s) % SPREADSHEETS];
+			for (int l = 0; l < levels; l++) {
+				grant.accept(new SpreadsheetPermission(users[user], spreadsheet, LEVELS[l]));
+			}
+		}
+	}
+
+	private static long usedHeap() {
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+		}
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+}
@@ -0,0 +1,77 @@
+package com.jdriven.permission;
+
+import java.util.Collections;
+import java.util.SplittableRandom;
+
+import com.jdriven.model.Spreadsheet;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * Synthetic grants for benchmarks: every user is granted {@code READ} on {@value #SPREADSHEETS_PER_USER} spreadsheets
+ * of their own, so stores of different sizes differ in the number of users.
+ */
+final class SpreadsheetGrants {
+
+	static final int SPREADSHEETS_PER_USER = 100;
+
+	static final int PROBES = 1024;
+
+	private SpreadsheetGrants() {
+	}
+
+	static void populate(SpreadsheetPermissionStore store, int grants) {
+		store.update(changes -> {
+			for (int u = 0; u < users(grants); u++) {
+				User user = user(u);
+				for (int s = 0; s < SPREADSHEETS_PER_USER; s++) {
+					long id = (long) u * SPREADSHEETS_PER_USER + s;
+					changes.grant(new SpreadsheetPermission(user, new Spreadsheet(id, "spreadsheet " + id), "READ"));
+				}
+			}
+		});
+	}
+
+	static int users(int grants) {
+		return Math.max(1, grants / SPREADSHEETS_PER_USER);
+	}
+
+	static User user(int index) {
+		return new User("user" + index, "", Collections.emptyList());
+	}
+
+	static Authentication authentication(int index) {
+		return UsernamePasswordAuthenticationToken.authenticated(user(index), null, Collections.emptyList());
+	}
+
+	/**
+	 * Probes for {@value #PROBES} checks by random users, alternating between a spreadsheet the user was granted and one
+	 * they were not.
+	 */
+	static final class Probes {
+
+		final Authentication[] authentications = new Authentication[PROBES];
+		final Spreadsheet[] spreadsheets = new Spreadsheet[PROBES];
+		private int next;
+
+		Probes(int grants, long seed) {
+			SplittableRandom random = new SplittableRandom(seed);
+			int users = users(grants);
+			for (int i = 0; i < PROBES; i++) {
+				int user = random.nextInt(users);
+				int owner = i % 2 == 0 ? user : (user + 1 + random.nextInt(Math.max(1, users - 1))) % users;
+				long id = (long) owner * SPREADSHEETS_PER_USER + random.nextInt(SPREADSHEETS_PER_USER);
+				authentications[i] = authentication(user);
+				spreadsheets[i] = new Spreadsheet(id, "spreadsheet " + id);
+			}
+		}
+
+		int next() {
+			return next++ & (PROBES - 1);
+		}
+
+	}
+
+}
@@ -0,0 +1,81 @@
+package com.jdriven.permission;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loads the synthetic {@link SpreadsheetGrants} from a CSV or binary file through the
+ * {@link SpreadsheetPermissionLoader}, using all available processors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class SpreadsheetPermissionLoaderBenchmark {
+
+	@Param({ "1000000", "20000000" })
+	private int grants;
+
+	@Param({ "csv", "binary" })
+	private String format;
+
+	private Path file;
+
+	@Setup
+	public void setup() throws IOException {
+		file = Files.createTempFile("grants", "." + format);
+		int users = SpreadsheetGrants.users(grants);
+		if (format.equals("csv")) {
+			try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+				for (int u = 0; u < users; u++) {
+					for (int s = 0; s < SpreadsheetGrants.SPREADSHEETS_PER_USER; s++) {
+						writer.write("user" + u + "," + ((long) u * SpreadsheetGrants.SPREADSHEETS_PER_USER + s)
+								+ ",READ\n");
+					}
+				}
+			}
+		}
+		else {
+			try (SpreadsheetPermissionLoader.BinaryWriter writer = new SpreadsheetPermissionLoader.BinaryWriter(
+					file)) {
+				for (int u = 0; u < users; u++) {
+					for (int s = 0; s < SpreadsheetGrants.SPREADSHEETS_PER_USER; s++) {
+						writer.write("user" + u, (long) u * SpreadsheetGrants.SPREADSHEETS_PER_USER + s,
+								PermissionLevel.READ);
+					}
+				}
+			}
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.delete(file);
+	}
+
+	@Benchmark
+	public BitmaskSpreadsheetPermissionStore load() throws IOException {
+		BitmaskSpreadsheetPermissionStore store = new BitmaskSpreadsheetPermissionStore();
+		new SpreadsheetPermissionLoader(store, Runtime.getRuntime().availableProcessors()).load(file);
+		return store;
+	}
+
+}
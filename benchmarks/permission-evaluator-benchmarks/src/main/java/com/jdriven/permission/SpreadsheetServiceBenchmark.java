@@ -0,0 +1,107 @@
+package com.jdriven.permission;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import com.jdriven.PermissionEvaluatorApplication;
+import com.jdriven.model.Spreadsheet;
+import com.jdriven.service.SpreadsheetService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * Compares the proxied {@link SpreadsheetService} methods checked through a {@code @PreAuthorize} expression, with
+ * those checked through the typed {@link HasSpreadsheetPermission} annotation. Expressions are either interpreted, or
+ * compiled to bytecode. Alice is checked among the synthetic {@link SpreadsheetGrants} of other users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SpreadsheetServiceBenchmark {
+
+	private final User alice = new User("alice", "", Collections.emptyList());
+
+	private final Spreadsheet spreadsheet = new Spreadsheet(123L, "alice's spreadsheet");
+
+	@Param({ "false", "true" })
+	private boolean compileExpressions;
+
+	@Param({ "1000", "100000", "10000000" })
+	private int grants;
+
+	private ConfigurableApplicationContext context;
+
+	private SpreadsheetService service;
+
+	@Setup
+	public void setup() {
+		context = new SpringApplicationBuilder(PermissionEvaluatorApplication.class)
+				.web(WebApplicationType.NONE)
+				.logStartupInfo(false)
+				.run("--logging.level.root=WARN",
+						"--spreadsheet.permission.compile-expressions=" + compileExpressions);
+		SpreadsheetPermissionStore store = context.getBean(SpreadsheetPermissionStore.class);
+		SpreadsheetGrants.populate(store, grants);
+		store.update(changes -> changes
+				.grant(new SpreadsheetPermission(alice, spreadsheet, "READ"))
+				.grant(new SpreadsheetPermission(alice, spreadsheet, "PRINT")));
+		service = context.getBean(SpreadsheetService.class);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@State(Scope.Thread)
+	public static class Authenticated {
+
+		@Setup
+		public void setup(SpreadsheetServiceBenchmark benchmark) {
+			SecurityContextHolder.getContext().setAuthentication(
+					UsernamePasswordAuthenticationToken.authenticated(benchmark.alice, null, Collections.emptyList()));
+		}
+
+	}
+
+	@Benchmark
+	public void readWithExpression(Authenticated authenticated) {
+		service.read(spreadsheet);
+	}
+
+	@Benchmark
+	public void readByIdWithExpression(Authenticated authenticated) {
+		service.readById(spreadsheet.getId());
+	}
+
+	@Benchmark
+	public void printWithTypedAnnotation(Authenticated authenticated) {
+		service.print(spreadsheet);
+	}
+
+	@Benchmark
+	public void printByIdWithTypedAnnotation(Authenticated authenticated) {
+		service.printById(spreadsheet.getId());
+	}
+
+}
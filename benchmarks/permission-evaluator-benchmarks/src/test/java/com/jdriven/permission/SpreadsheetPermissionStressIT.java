@@ -0,0 +1,88 @@
+package com.jdriven.permission;
+
+import java.util.Collections;
+
+import com.jdriven.model.Spreadsheet;
+import com.jdriven.service.SpreadsheetService;
+import com.jdriven.stress.StressHarness;
+import com.jdriven.stress.StressReport;
+import com.jdriven.stress.StressTarget;
+import com.jdriven.stress.StressWorkload;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Grants and revokes read permission through the {@link SpreadsheetPermissionStore}, while checking it through the
+ * {@code @PreAuthorize} secured {@link SpreadsheetService#readById(Long)} from many threads at once.
+ */
+@SpringBootTest(properties = "logging.level.com.jdriven.service=WARN")
+class SpreadsheetPermissionStressIT {
+
+	private static final Logger log = LoggerFactory.getLogger(SpreadsheetPermissionStressIT.class);
+
+	private static final long FIRST_SPREADSHEET = 1_000_000L;
+
+	@Autowired
+	private SpreadsheetPermissionStore store;
+
+	@Autowired
+	private SpreadsheetService service;
+
+	@Test
+	void testConcurrentPermissionChecksAreLinearizable() {
+		StressWorkload workload = StressWorkload.fromSystemProperties();
+		User[] users = new User[workload.users()];
+		Authentication[] authentications = new Authentication[workload.users()];
+		for (int i = 0; i < users.length; i++) {
+			users[i] = new User("stress-" + i, "", Collections.emptyList());
+			authentications[i] = UsernamePasswordAuthenticationToken.authenticated(users[i], null,
+					users[i].getAuthorities());
+		}
+
+		StressReport report = StressHarness.run(workload, new StressTarget() {
+			@Override
+			public void grant(int user, int spreadsheet) {
+				store.grant(new SpreadsheetPermission(users[user], spreadsheet(spreadsheet), "READ"));
+			}
+
+			@Override
+			public void revoke(int user, int spreadsheet) {
+				store.revoke(new SpreadsheetPermission(users[user], spreadsheet(spreadsheet), "READ"));
+			}
+
+			@Override
+			public boolean check(int user, int spreadsheet) {
+				SecurityContextHolder.getContext().setAuthentication(authentications[user]);
+				try {
+					service.readById(FIRST_SPREADSHEET + spreadsheet);
+					return true;
+				}
+				catch (AccessDeniedException e) {
+					return false;
+				}
+			}
+		});
+		log.info("{}", report);
+
+		assertThat(report.checks().count()).isPositive();
+		assertThat(report.writes().count()).isPositive();
+		assertThat(report.sampleErrors()).isEmpty();
+		assertThat(report.sampleViolations()).isEmpty();
+	}
+
+	private static Spreadsheet spreadsheet(int spreadsheet) {
+		return new Spreadsheet(FIRST_SPREADSHEET + spreadsheet, "stress spreadsheet " + spreadsheet);
+	}
+
+}
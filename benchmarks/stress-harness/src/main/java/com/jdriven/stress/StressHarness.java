@@ -0,0 +1,200 @@
+package com.jdriven.stress;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Runs a mix of grants, revokes and checks from many threads at once against a {@link StressTarget}, measuring the
+ * latency of each operation, and verifying that every check is linearizable.
+ * <p>
+ * Each pair of user and spreadsheet is written by a single thread only, which alternates between granting and
+ * revoking access, and counts the writes it started and completed. A check that saw no write to its pair start or
+ * complete while it ran must therefore return the access as left by the last completed write; any other result is a
+ * violation, such as a stale or lost grant or revoke. Checks that overlap a write may return either result.
+ */
+public final class StressHarness {
+
+	private static final int SAMPLE_SIZE = 10;
+
+	private StressHarness() {
+	}
+
+	public static StressReport run(StressWorkload workload, StressTarget target) {
+		return new Run(workload, target).execute();
+	}
+
+	private static final class Run {
+
+		private final StressWorkload workload;
+
+		private final StressTarget target;
+
+		private final int pairs;
+
+		private final AtomicLongArray started;
+
+		private final AtomicLongArray completed;
+
+		private final LongAdder violations = new LongAdder();
+
+		private final Queue<String> sampleViolations = new ConcurrentLinkedQueue<>();
+
+		private final LongAdder errors = new LongAdder();
+
+		private final Queue<Throwable> sampleErrors = new ConcurrentLinkedQueue<>();
+
+		private Run(StressWorkload workload, StressTarget target) {
+			this.workload = workload;
+			this.target = target;
+			this.pairs = workload.users() * workload.spreadsheets();
+			this.started = new AtomicLongArray(pairs);
+			this.completed = new AtomicLongArray(pairs);
+		}
+
+		private StressReport execute() {
+			CountDownLatch ready = new CountDownLatch(workload.threads());
+			CountDownLatch go = new CountDownLatch(1);
+			List<Worker> workers = new ArrayList<>();
+			List<Thread> threads = new ArrayList<>();
+			for (int i = 0; i < workload.threads(); i++) {
+				Worker worker = new Worker(i, ready, go);
+				workers.add(worker);
+				threads.add(new Thread(worker, "stress-" + i));
+			}
+			threads.forEach(Thread::start);
+			awaitUninterruptibly(ready);
+			long start = System.nanoTime();
+			go.countDown();
+			threads.forEach(Run::joinUninterruptibly);
+			Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+			Histogram checks = new Histogram(3);
+			Histogram writes = new Histogram(3);
+			for (Worker worker : workers) {
+				checks.add(worker.checks);
+				writes.add(worker.writes);
+			}
+			return new StressReport(elapsed, StressReport.Operations.of(checks, elapsed),
+					StressReport.Operations.of(writes, elapsed), violations.sum(), List.copyOf(sampleViolations),
+					List.copyOf(sampleErrors), errors.sum());
+		}
+
+		private void check(int pair) {
+			int user = pair / workload.spreadsheets();
+			int spreadsheet = pair % workload.spreadsheets();
+			long completedBefore = completed.get(pair);
+			boolean granted = target.check(user, spreadsheet);
+			long startedAfter = started.get(pair);
+			// Writes alternate between granting and revoking, starting from no access
+			boolean expected = completedBefore % 2 == 1;
+			if (startedAfter == completedBefore && granted != expected) {
+				violations.increment();
+				sample(sampleViolations, "user " + user + " spreadsheet " + spreadsheet + " checked " + granted
+						+ " after " + completedBefore + " writes");
+			}
+		}
+
+		private void write(int pair) {
+			int user = pair / workload.spreadsheets();
+			int spreadsheet = pair % workload.spreadsheets();
+			long writes = completed.get(pair);
+			started.set(pair, writes + 1);
+			if (writes % 2 == 0) {
+				target.grant(user, spreadsheet);
+			}
+			else {
+				target.revoke(user, spreadsheet);
+			}
+			completed.set(pair, writes + 1);
+		}
+
+		private void error(Throwable error) {
+			errors.increment();
+			sample(sampleErrors, error);
+		}
+
+		private static <T> void sample(Queue<T> samples, T sample) {
+			if (samples.size() < SAMPLE_SIZE) {
+				samples.add(sample);
+			}
+		}
+
+		private static void awaitUninterruptibly(CountDownLatch latch) {
+			try {
+				latch.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while starting workers", e);
+			}
+		}
+
+		private static void joinUninterruptibly(Thread thread) {
+			try {
+				thread.join();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while awaiting " + thread.getName(), e);
+			}
+		}
+
+		private final class Worker implements Runnable {
+
+			private final int index;
+
+			private final CountDownLatch ready;
+
+			private final CountDownLatch go;
+
+			private final Histogram checks = new Histogram(3);
+
+			private final Histogram writes = new Histogram(3);
+
+			private Worker(int index, CountDownLatch ready, CountDownLatch go) {
+				this.index = index;
+				this.ready = ready;
+				this.go = go;
+			}
+
+			@Override
+			public void run() {
+				SplittableRandom random = new SplittableRandom(index);
+				// Pairs are written by the thread whose index they equal modulo the number of threads
+				int threads = workload.threads();
+				int owned = (pairs - index + threads - 1) / threads;
+				ready.countDown();
+				awaitUninterruptibly(go);
+				long deadline = System.nanoTime() + workload.duration().toNanos();
+				long now;
+				while ((now = System.nanoTime()) - deadline < 0) {
+					boolean write = owned > 0 && random.nextInt(100) < workload.writePercentage();
+					try {
+						if (write) {
+							write(index + random.nextInt(owned) * threads);
+						}
+						else {
+							check(random.nextInt(pairs));
+						}
+					}
+					catch (RuntimeException e) {
+						error(e);
+					}
+					(write ? writes : checks).recordValue(System.nanoTime() - now);
+				}
+			}
+
+		}
+
+	}
+
+}
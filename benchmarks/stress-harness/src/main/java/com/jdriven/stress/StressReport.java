@@ -0,0 +1,46 @@
+package com.jdriven.stress;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * The outcome of a {@link StressHarness} run: throughput and latency of checks and writes, checks that returned a
+ * result no linearizable execution could have, with a sample of them, and a sample of the exceptions thrown.
+ */
+public record StressReport(Duration elapsed, Operations checks, Operations writes, long violations,
+		List<String> sampleViolations, List<Throwable> sampleErrors, long errors) {
+
+	@Override
+	public String toString() {
+		return String.format("%s over %s:%n  checks: %s%n  writes: %s%n  violations: %d %s%n  errors: %d %s",
+				StressReport.class.getSimpleName(), elapsed, checks, writes, violations, sampleViolations, errors,
+				sampleErrors);
+	}
+
+	/**
+	 * Latencies in nanoseconds.
+	 */
+	public record Operations(long count, double perSecond, long p50, long p99, long p999, long max) {
+
+		static Operations of(Histogram histogram, Duration elapsed) {
+			return new Operations(histogram.getTotalCount(), histogram.getTotalCount() * 1e9 / elapsed.toNanos(),
+					histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99),
+					histogram.getValueAtPercentile(99.9), histogram.getMaxValue());
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d ops, %.0f ops/s, p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us", count,
+					perSecond, micros(p50), micros(p99), micros(p999), micros(max));
+		}
+
+		private static double micros(long nanos) {
+			return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+		}
+
+	}
+
+}
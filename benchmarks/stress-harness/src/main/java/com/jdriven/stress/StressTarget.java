@@ -0,0 +1,15 @@
+package com.jdriven.stress;
+
+/**
+ * Access to spreadsheets as granted, revoked and checked by a sample, for users and spreadsheets numbered from
+ * {@code 0}, of which none have access before the {@link StressHarness} runs.
+ */
+public interface StressTarget {
+
+	void grant(int user, int spreadsheet);
+
+	void revoke(int user, int spreadsheet);
+
+	boolean check(int user, int spreadsheet);
+
+}
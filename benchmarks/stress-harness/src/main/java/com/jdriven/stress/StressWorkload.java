@@ -0,0 +1,34 @@
+package com.jdriven.stress;
+
+import java.time.Duration;
+
+/**
+ * How many threads run the {@link StressHarness} for how long, over how many users and spreadsheets, and the
+ * percentage of operations that grant or revoke access rather than check it.
+ */
+public record StressWorkload(int threads, Duration duration, int users, int spreadsheets, int writePercentage) {
+
+	public StressWorkload {
+		if (threads < 1 || users < 1 || spreadsheets < 1) {
+			throw new IllegalArgumentException("Threads, users and spreadsheets must be positive");
+		}
+		if (writePercentage < 0 || writePercentage > 100) {
+			throw new IllegalArgumentException("Write percentage must be between 0 and 100: " + writePercentage);
+		}
+	}
+
+	/**
+	 * A workload small enough for CI by default, to be scaled up through the {@code stress.threads},
+	 * {@code stress.duration}, {@code stress.users}, {@code stress.spreadsheets} and {@code stress.write-percentage}
+	 * system properties.
+	 */
+	public static StressWorkload fromSystemProperties() {
+		return new StressWorkload(
+				Integer.getInteger("stress.threads", Math.max(4, 2 * Runtime.getRuntime().availableProcessors())),
+				Duration.parse(System.getProperty("stress.duration", "PT2S")),
+				Integer.getInteger("stress.users", 16),
+				Integer.getInteger("stress.spreadsheets", 64),
+				Integer.getInteger("stress.write-percentage", 10));
+	}
+
+}
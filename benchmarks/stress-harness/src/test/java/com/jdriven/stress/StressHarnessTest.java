@@ -0,0 +1,88 @@
+package com.jdriven.stress;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StressHarnessTest {
+
+	private final StressWorkload workload = new StressWorkload(4, Duration.ofMillis(200), 4, 8, 20);
+
+	@Test
+	void testConcurrentSetIsLinearizable() {
+		Set<Integer> granted = ConcurrentHashMap.newKeySet();
+		StressReport report = StressHarness.run(workload, new StressTarget() {
+			@Override
+			public void grant(int user, int spreadsheet) {
+				granted.add(user * 8 + spreadsheet);
+			}
+
+			@Override
+			public void revoke(int user, int spreadsheet) {
+				granted.remove(user * 8 + spreadsheet);
+			}
+
+			@Override
+			public boolean check(int user, int spreadsheet) {
+				return granted.contains(user * 8 + spreadsheet);
+			}
+		});
+
+		assertThat(report.checks().count()).isPositive();
+		assertThat(report.writes().count()).isPositive();
+		assertThat(report.violations()).isZero();
+		assertThat(report.errors()).isZero();
+	}
+
+	@Test
+	void testStaleChecksAreViolations() {
+		Map<Integer, Boolean> granted = new ConcurrentHashMap<>();
+		StressReport report = StressHarness.run(workload, new StressTarget() {
+			@Override
+			public void grant(int user, int spreadsheet) {
+				granted.put(user * 8 + spreadsheet, true);
+			}
+
+			@Override
+			public void revoke(int user, int spreadsheet) {
+				// Lost revoke
+			}
+
+			@Override
+			public boolean check(int user, int spreadsheet) {
+				return granted.getOrDefault(user * 8 + spreadsheet, false);
+			}
+		});
+
+		assertThat(report.violations()).isPositive();
+		assertThat(report.sampleViolations()).isNotEmpty();
+	}
+
+	@Test
+	void testErrorsAreReported() {
+		StressReport report = StressHarness.run(workload, new StressTarget() {
+			@Override
+			public void grant(int user, int spreadsheet) {
+				throw new IllegalStateException("Grant failed");
+			}
+
+			@Override
+			public void revoke(int user, int spreadsheet) {
+			}
+
+			@Override
+			public boolean check(int user, int spreadsheet) {
+				return false;
+			}
+		});
+
+		assertThat(report.errors()).isPositive();
+		assertThat(report.sampleErrors()).first().extracting(Throwable::getMessage).isEqualTo("Grant failed");
+	}
+
+}
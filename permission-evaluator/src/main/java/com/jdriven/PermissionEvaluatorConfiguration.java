@@ -1,26 +1,65 @@
 package com.jdriven;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.jdriven.permission.BitmaskSpreadsheetPermissionStore;
+import com.jdriven.permission.CachingParameterNameDiscoverer;
+import com.jdriven.permission.CompilingExpressionParser;
 import com.jdriven.permission.CustomPermissionEvaluator;
+import com.jdriven.permission.IndexedReactivePermissionEvaluator;
+import com.jdriven.permission.MemoizingPermissionEvaluator;
+import com.jdriven.permission.PermissionBloomFilterMetrics;
+import com.jdriven.permission.PermissionImplications;
+import com.jdriven.permission.ReactivePermissionEvaluator;
+import com.jdriven.permission.ReactiveSpreadsheetPermissionAuthorizationManager;
+import com.jdriven.permission.SpreadsheetPermissionAuthorizationManager;
+import com.jdriven.permission.SpreadsheetPermissionFilter;
+import com.jdriven.permission.SpreadsheetPermissionFilterInterceptor;
+import com.jdriven.permission.SpreadsheetPermissionLoader;
 
 import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Role;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.security.access.PermissionEvaluator;
 import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
 import org.springframework.security.authorization.method.AuthorizationManagerBeforeMethodInterceptor;
+import org.springframework.security.authorization.method.AuthorizationManagerBeforeReactiveMethodInterceptor;
 import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+import org.springframework.security.core.parameters.DefaultSecurityParameterNameDiscoverer;
+import org.springframework.util.StringUtils;
+
+import reactor.core.scheduler.Schedulers;
 
 @Configuration
 @EnableMethodSecurity(prePostEnabled = false)
+@EnableScheduling
 class PermissionEvaluatorConfiguration {
 
 	@Bean
 	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
-	Advisor preAuthorizeAuthorizationMethodInterceptor(CustomPermissionEvaluator customPermissionEvaluator) {
+	Advisor preAuthorizeAuthorizationMethodInterceptor(CustomPermissionEvaluator customPermissionEvaluator,
+			ObjectProvider<MemoizingPermissionEvaluator> memoizingPermissionEvaluator,
+			ObjectProvider<CompilingExpressionParser> compilingExpressionParser) {
 		DefaultMethodSecurityExpressionHandler expressionHandler = new DefaultMethodSecurityExpressionHandler();
-		expressionHandler.setPermissionEvaluator(customPermissionEvaluator);
+		expressionHandler.setPermissionEvaluator(
+				permissionEvaluator(customPermissionEvaluator, memoizingPermissionEvaluator));
+		expressionHandler.setParameterNameDiscoverer(
+				new CachingParameterNameDiscoverer(new DefaultSecurityParameterNameDiscoverer()));
+		compilingExpressionParser.ifAvailable(expressionHandler::setExpressionParser);
 
 		PreAuthorizeAuthorizationManager authorizationManager = new PreAuthorizeAuthorizationManager();
 		authorizationManager.setExpressionHandler(expressionHandler);
@@ -28,4 +67,127 @@ class PermissionEvaluatorConfiguration {
 		return AuthorizationManagerBeforeMethodInterceptor.preAuthorize(authorizationManager);
 	}
 
+	@Bean
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	Advisor spreadsheetPermissionAuthorizationMethodInterceptor(CustomPermissionEvaluator customPermissionEvaluator,
+			ObjectProvider<MemoizingPermissionEvaluator> memoizingPermissionEvaluator) {
+		SpreadsheetPermissionAuthorizationManager authorizationManager = new SpreadsheetPermissionAuthorizationManager(
+				permissionEvaluator(customPermissionEvaluator, memoizingPermissionEvaluator));
+		return new AuthorizationManagerBeforeMethodInterceptor(authorizationManager.pointcut(), authorizationManager);
+	}
+
+	/**
+	 * Check reactive methods on the subscribing thread, unless permissions are served from a memory mapped snapshot in
+	 * {@code spreadsheet.permission.snapshot-dir}, of which reading a page may block on disk.
+	 */
+	@Bean
+	ReactivePermissionEvaluator reactivePermissionEvaluator(CustomPermissionEvaluator customPermissionEvaluator,
+			@Value("${spreadsheet.permission.snapshot-dir:}") String snapshotDirectory) {
+		return new IndexedReactivePermissionEvaluator(customPermissionEvaluator,
+				StringUtils.hasText(snapshotDirectory) ? Schedulers.boundedElastic() : Schedulers.immediate());
+	}
+
+	/**
+	 * Check {@code @HasSpreadsheetPermission} methods returning a {@code Mono} or {@code Flux} on subscription, against
+	 * the authentication in the subscriber context.
+	 */
+	@Bean
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	Advisor reactiveSpreadsheetPermissionAuthorizationMethodInterceptor(
+			ReactivePermissionEvaluator reactivePermissionEvaluator) {
+		ReactiveSpreadsheetPermissionAuthorizationManager authorizationManager =
+				new ReactiveSpreadsheetPermissionAuthorizationManager(reactivePermissionEvaluator);
+		return new AuthorizationManagerBeforeReactiveMethodInterceptor(authorizationManager.pointcut(),
+				authorizationManager);
+	}
+
+	@Bean
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	Advisor spreadsheetPermissionFilterMethodInterceptor(CustomPermissionEvaluator customPermissionEvaluator) {
+		return new DefaultPointcutAdvisor(
+				new AnnotationMatchingPointcut(null, SpreadsheetPermissionFilter.class, true),
+				new SpreadsheetPermissionFilterInterceptor(customPermissionEvaluator));
+	}
+
+	/**
+	 * Declare which permission levels imply others through {@code spreadsheet.permission.implications}, such as
+	 * {@code OWNER > WRITE > READ,OWNER > PRINT}; without it, each level grants only itself.
+	 */
+	@Bean
+	PermissionImplications permissionImplications(
+			@Value("${spreadsheet.permission.implications:}") List<String> rules) {
+		return rules.isEmpty() ? PermissionImplications.NONE : PermissionImplications.of(rules);
+	}
+
+	/**
+	 * Serve permissions from a memory mapped snapshot file in {@code spreadsheet.permission.snapshot-dir}, which is
+	 * written again on shutdown.
+	 */
+	@Bean
+	@ConditionalOnProperty("spreadsheet.permission.snapshot-dir")
+	Closeable spreadsheetPermissionSnapshot(BitmaskSpreadsheetPermissionStore store,
+			@Value("${spreadsheet.permission.snapshot-dir}") Path directory) throws IOException {
+		return store.open(directory);
+	}
+
+	/**
+	 * Put a Bloom filter in front of the permission index, sized for the
+	 * {@code spreadsheet.permission.bloom-filter.false-positive-rate} given, such as {@code 0.01}.
+	 */
+	@Bean
+	@ConditionalOnProperty("spreadsheet.permission.bloom-filter.false-positive-rate")
+	PermissionBloomFilterMetrics permissionBloomFilterMetrics(BitmaskSpreadsheetPermissionStore store,
+			@Value("${spreadsheet.permission.bloom-filter.false-positive-rate}") double falsePositiveRate) {
+		store.useBloomFilter(falsePositiveRate);
+		return new PermissionBloomFilterMetrics(store);
+	}
+
+	/**
+	 * Load grants in bulk on startup from the CSV or binary file at {@code spreadsheet.permission.load-from}, once
+	 * any snapshot is opened, but before the web server accepts requests, which would otherwise all be denied.
+	 */
+	@Bean
+	@ConditionalOnProperty("spreadsheet.permission.load-from")
+	SmartInitializingSingleton spreadsheetPermissionLoader(BitmaskSpreadsheetPermissionStore store,
+			@Value("${spreadsheet.permission.load-from}") Path file) {
+		SpreadsheetPermissionLoader loader = new SpreadsheetPermissionLoader(store,
+				Runtime.getRuntime().availableProcessors());
+		return () -> {
+			try {
+				loader.load(file);
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException("Failed to load permissions from " + file, e);
+			}
+		};
+	}
+
+	/**
+	 * Opt in to compiling {@code @PreAuthorize} expressions to bytecode with
+	 * {@code spreadsheet.permission.compile-expressions=true}.
+	 */
+	@Bean
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	@ConditionalOnProperty(name = "spreadsheet.permission.compile-expressions", havingValue = "true")
+	CompilingExpressionParser compilingExpressionParser() {
+		return new CompilingExpressionParser(getClass().getClassLoader());
+	}
+
+	private static PermissionEvaluator permissionEvaluator(CustomPermissionEvaluator customPermissionEvaluator,
+			ObjectProvider<MemoizingPermissionEvaluator> memoizingPermissionEvaluator) {
+		PermissionEvaluator permissionEvaluator = memoizingPermissionEvaluator.getIfAvailable();
+		return permissionEvaluator != null ? permissionEvaluator : customPermissionEvaluator;
+	}
+
+	/**
+	 * Opt in to remembering permission decisions for the duration of a request with
+	 * {@code spreadsheet.permission.memoize=true}.
+	 */
+	@Bean
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	@ConditionalOnProperty(name = "spreadsheet.permission.memoize", havingValue = "true")
+	MemoizingPermissionEvaluator memoizingPermissionEvaluator(CustomPermissionEvaluator customPermissionEvaluator) {
+		return new MemoizingPermissionEvaluator(customPermissionEvaluator);
+	}
+
 }
@@ -0,0 +1,500 @@
+package com.jdriven.permission;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+import com.jdriven.model.Spreadsheet;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.Assert;
+
+/**
+ * Stores the permission levels per user as a primitive map from spreadsheet id to a {@link PermissionLevel} bitmask,
+ * so a permission check is two hash lookups and a bitwise and, without boxing or string comparisons.
+ * <p>
+ * Each entry holds both the levels granted explicitly, in the upper half, and the effective levels they imply through
+ * the {@link PermissionImplications}, in the lower half. Grants and revokes recompute the effective levels of only the
+ * entries they change, so checking an implied level takes the same single lookup as checking a granted level.
+ * <p>
+ * Permissions granted to authorities are kept per authority, and merged into one view per distinct set of authorities
+ * presented, so a check takes one lookup for the user and one for the view, however many groups the user is in. Views
+ * are recomputed lazily once the authority permissions change, and there are at most {@value #MAX_GROUP_VIEWS} of
+ * them, shared by all users presenting the same authorities rather than kept per user.
+ * <p>
+ * Readers work against an immutable {@link PermissionSnapshot} without taking locks. Writers are serialized, and
+ * publish a new snapshot per batch of changes with a single volatile write.
+ * <p>
+ * Once {@link #open(Path) opened} on a directory, permissions are served from a memory mapped snapshot file in that
+ * directory, with changes since kept on the heap and appended to a change log next to it. Restarting then only maps the
+ * file and replays the change log, rather than rebuilding the index.
+ * <p>
+ * With a {@link #useBloomFilter(double) Bloom filter} in front of the index, checks for spreadsheets a user holds no
+ * permission on at all are denied without looking up the user, which is what most checks from list pages amount to.
+ */
+@Repository
+public class BitmaskSpreadsheetPermissionStore implements SpreadsheetPermissionStore {
+
+	private static final int GRANTED_SHIFT = 16;
+
+	private static final String SNAPSHOT_FILE = "permissions.snapshot";
+
+	private static final String CHANGE_LOG_FILE = "permissions.log";
+
+	static final int MAX_GROUP_VIEWS = 1024;
+
+	private final Object writeLock = new Object();
+
+	private final PermissionImplications implications;
+
+	private volatile PermissionSnapshot snapshot = PermissionSnapshot.EMPTY;
+
+	private Path directory;
+
+	private PermissionChangeLog changeLog;
+
+	private volatile PermissionBloomFilter bloomFilter;
+
+	private final LongAdder bloomFilterNegatives = new LongAdder();
+
+	private final LongAdder bloomFilterFalsePositives = new LongAdder();
+
+	private final Map<Collection<? extends GrantedAuthority>, GroupView> groupViews = new ConcurrentHashMap<>();
+
+	public BitmaskSpreadsheetPermissionStore() {
+		this(PermissionImplications.NONE);
+	}
+
+	@Autowired
+	public BitmaskSpreadsheetPermissionStore(PermissionImplications implications) {
+		this.implications = implications;
+	}
+
+	@Override
+	public void update(Consumer<Changes> changes) {
+		synchronized (writeLock) {
+			PermissionSnapshot.Builder builder = snapshot.toBuilder();
+			PermissionChangeLog.Batch batch = changeLog == null ? null : new PermissionChangeLog.Batch();
+			changes.accept(new BuilderChanges(builder, implications, batch, bloomFilter));
+			if (batch != null) {
+				changeLog.append(batch);
+			}
+			publish(builder.build(), false);
+		}
+	}
+
+	@Override
+	public boolean hasPermission(String username, Collection<? extends GrantedAuthority> authorities,
+			Serializable spreadsheetId, Object level) {
+		int mask = PermissionLevel.maskOf(level);
+		if (mask == 0 || !(spreadsheetId instanceof Long id)) {
+			return false;
+		}
+		// Read the snapshot before the filter, which then holds at least the grants in the snapshot
+		PermissionSnapshot current = snapshot;
+		PermissionBloomFilter filter = bloomFilter;
+		LongIntHashMap groups = groupPermissionsOf(current, authorities);
+		if (filter != null && !filter.mightContain(username, id) && (groups == null || groups.get(id) == 0)) {
+			bloomFilterNegatives.increment();
+			return false;
+		}
+		int entry = entryOf(current.entriesOf(username), groups, id);
+		if (filter != null && entry == 0) {
+			bloomFilterFalsePositives.increment();
+		}
+		return (entry & mask) != 0;
+	}
+
+	@Override
+	public LongPredicate permittedSpreadsheets(String username, Collection<? extends GrantedAuthority> authorities,
+			Object level) {
+		int mask = PermissionLevel.maskOf(level);
+		PermissionSnapshot current = snapshot;
+		PermissionBloomFilter filter = bloomFilter;
+		SpreadsheetEntries direct = current.entriesOf(username);
+		LongIntHashMap groups = groupPermissionsOf(current, authorities);
+		if (mask == 0 || direct == null && groups == null) {
+			return id -> false;
+		}
+		if (filter == null) {
+			return id -> (entryOf(direct, groups, id) & mask) != 0;
+		}
+		return id -> {
+			if (!filter.mightContain(username, id) && (groups == null || groups.get(id) == 0)) {
+				bloomFilterNegatives.increment();
+				return false;
+			}
+			int entry = entryOf(direct, groups, id);
+			if (entry == 0) {
+				bloomFilterFalsePositives.increment();
+			}
+			return (entry & mask) != 0;
+		};
+	}
+
+	/**
+	 * Put a Bloom filter over all pairs of a user or authority and a spreadsheet with any permission in front of the
+	 * index, which is rebuilt as it fills up or accumulates revoked pairs.
+	 *
+	 * @param falsePositiveRate the fraction of checks for pairs without permission still passed on to the index
+	 */
+	public void useBloomFilter(double falsePositiveRate) {
+		synchronized (writeLock) {
+			bloomFilter = bloomFilterOf(snapshot, falsePositiveRate);
+		}
+	}
+
+	/**
+	 * @return the number of checks denied by the Bloom filter, without looking up the index
+	 */
+	public long bloomFilterNegatives() {
+		return bloomFilterNegatives.sum();
+	}
+
+	/**
+	 * @return the number of checks passed by the Bloom filter, for which the index then held no permission at all
+	 */
+	public long bloomFilterFalsePositives() {
+		return bloomFilterFalsePositives.sum();
+	}
+
+	/**
+	 * @return the false positive rate expected from the pairs added to the Bloom filter, or {@code NaN} when not used
+	 */
+	public double bloomFilterExpectedFalsePositiveRate() {
+		PermissionBloomFilter filter = bloomFilter;
+		return filter == null ? Double.NaN : filter.expectedFalsePositiveRate();
+	}
+
+	/**
+	 * @return the heap taken by the bits of the Bloom filter, or {@code 0} when not used
+	 */
+	public long bloomFilterMemoryBytes() {
+		PermissionBloomFilter filter = bloomFilter;
+		return filter == null ? 0 : filter.memoryBytes();
+	}
+
+	/**
+	 * Replace all user permissions at once with those indexed elsewhere, such as by the
+	 * {@link SpreadsheetPermissionLoader}, keeping the permissions granted to authorities.
+	 */
+	void replaceAll(Map<String, LongIntHashMap>[] shards) throws IOException {
+		synchronized (writeLock) {
+			publish(snapshot.replaceAll(shards), true);
+			if (directory != null) {
+				// The change log can not express replacing all permissions, so write a new snapshot file instead
+				checkpoint();
+			}
+		}
+	}
+
+	/**
+	 * Serve permissions from the snapshot file in the directory instead of those in the store, and log changes to it
+	 * from now on. When the directory holds no snapshot yet, the current permissions are written to a new one.
+	 *
+	 * @return a handle to {@link #checkpoint()} any changes and release the files when closed
+	 */
+	public Closeable open(Path directory) throws IOException {
+		synchronized (writeLock) {
+			Assert.state(this.directory == null, () -> "Already opened " + this.directory);
+			Files.createDirectories(directory);
+			this.directory = directory;
+			Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+			if (!Files.exists(snapshotFile)) {
+				checkpoint();
+			}
+			else {
+				MappedPermissions base = MappedPermissions.map(snapshotFile, implications);
+				PermissionSnapshot.Builder builder = snapshot.replaceAll(base).toBuilder();
+				BuilderChanges replay = new BuilderChanges(builder, implications, null, null);
+				changeLog = PermissionChangeLog.open(directory.resolve(CHANGE_LOG_FILE), base.version(),
+						replay::apply);
+				publish(builder.build(), true);
+			}
+		}
+		return this::close;
+	}
+
+	/**
+	 * Write the current permissions to a new snapshot file and serve them from there, emptying the change log.
+	 * Writers wait until done, while readers continue against the previous snapshot.
+	 */
+	public void checkpoint() throws IOException {
+		synchronized (writeLock) {
+			Assert.state(directory != null, "Not opened on a directory");
+			PermissionSnapshot current = snapshot;
+			long fileVersion = current.version() + 1;
+			Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+			Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+			MappedPermissions.write(temporary, fileVersion, current.usernames(), current::copyOfEntries,
+					current.groups());
+			Files.move(temporary, snapshotFile, StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+
+			// A crash from here on leaves a change log of an older snapshot, which is then discarded as it should
+			MappedPermissions base = MappedPermissions.map(snapshotFile, implications);
+			PermissionChangeLog previous = changeLog;
+			changeLog = PermissionChangeLog.create(directory.resolve(CHANGE_LOG_FILE), fileVersion);
+			snapshot = current.replaceAll(base);
+			if (previous != null) {
+				previous.close();
+			}
+		}
+	}
+
+	private void close() throws IOException {
+		synchronized (writeLock) {
+			if (directory == null) {
+				return;
+			}
+			try {
+				if (changeLog.hasChanges()) {
+					checkpoint();
+				}
+			}
+			finally {
+				changeLog.close();
+				changeLog = null;
+				directory = null;
+			}
+		}
+	}
+
+	PermissionImplications implications() {
+		return implications;
+	}
+
+	/**
+	 * @return the version of the snapshot currently served to readers, incremented with every published batch
+	 */
+	public long version() {
+		return snapshot.version();
+	}
+
+	PermissionSnapshot snapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Publish a new snapshot to readers, after rebuilding the Bloom filter when it has filled up, or the snapshot was
+	 * not built through it.
+	 */
+	private void publish(PermissionSnapshot next, boolean replaced) {
+		PermissionBloomFilter filter = bloomFilter;
+		if (filter != null && (replaced || filter.needsRebuild())) {
+			bloomFilter = bloomFilterOf(next, filter.falsePositiveRate());
+		}
+		snapshot = next;
+	}
+
+	private static PermissionBloomFilter bloomFilterOf(PermissionSnapshot snapshot, double falsePositiveRate) {
+		long[] grants = new long[1];
+		snapshot.forEachGrant((principal, id) -> grants[0]++);
+		// Leave room to grow, so the filter is not rebuilt on every few grants
+		PermissionBloomFilter filter = PermissionBloomFilter.create(Math.max(1024, grants[0] * 2), falsePositiveRate);
+		snapshot.forEachGrant(filter::add);
+		return filter;
+	}
+
+	int groupViewCount() {
+		return groupViews.size();
+	}
+
+	/**
+	 * @return the levels granted to any of the authorities per spreadsheet, or {@code null} when they hold none
+	 */
+	private LongIntHashMap groupPermissionsOf(PermissionSnapshot current,
+			Collection<? extends GrantedAuthority> authorities) {
+		if (!current.hasGroupPermissions() || authorities.isEmpty()) {
+			return null;
+		}
+		GroupView view = groupViews.get(authorities);
+		if (view != null && view.groupsVersion() == current.groupsVersion()) {
+			return view.granted();
+		}
+		view = new GroupView(current.groupsVersion(), merge(current, authorities));
+		// Only collections comparing by content make a key found again; others are merged on every check
+		Collection<? extends GrantedAuthority> key = authorities instanceof Set ? Set.copyOf(authorities)
+				: authorities instanceof List ? List.copyOf(authorities) : null;
+		if (key != null) {
+			if (groupViews.size() >= MAX_GROUP_VIEWS) {
+				groupViews.clear();
+			}
+			groupViews.put(key, view);
+		}
+		return view.granted();
+	}
+
+	private static LongIntHashMap merge(PermissionSnapshot current,
+			Collection<? extends GrantedAuthority> authorities) {
+		LongIntHashMap merged = null;
+		for (GrantedAuthority authority : authorities) {
+			LongIntHashMap group = current.groupPermissionsOf(authority.getAuthority());
+			if (group == null) {
+				continue;
+			}
+			if (merged == null) {
+				merged = new LongIntHashMap(group.size());
+			}
+			LongIntHashMap into = merged;
+			group.forEach((id, entry) -> into.put(id, into.get(id) | granted(entry)));
+		}
+		return merged;
+	}
+
+	private int entryOf(SpreadsheetEntries direct, LongIntHashMap groups, long id) {
+		int entry = direct == null ? 0 : direct.get(id);
+		int groupGranted = groups == null ? 0 : groups.get(id);
+		if (groupGranted == 0) {
+			return entry;
+		}
+		// Entries revoked since the mapped file grant nothing, rather than the marker bit
+		int granted = entry == PermissionSnapshot.REVOKED ? 0 : granted(entry);
+		return entry(granted | groupGranted, implications);
+	}
+
+	private static int maskOf(String level, Spreadsheet spreadsheet) {
+		int mask = PermissionLevel.maskOf(level);
+		Assert.isTrue(mask != 0, () -> "Unknown permission level " + level);
+		Assert.notNull(spreadsheet.getId(), "Spreadsheet id must not be null");
+		return mask;
+	}
+
+	/**
+	 * @return the levels granted explicitly in an entry of the index
+	 */
+	static int granted(int entry) {
+		return entry >>> GRANTED_SHIFT;
+	}
+
+	/**
+	 * @return the entry of the index for the levels granted explicitly, together with the effective levels they imply
+	 */
+	static int entry(int granted, PermissionImplications implications) {
+		return granted == 0 ? 0 : granted << GRANTED_SHIFT | implications.effective(granted);
+	}
+
+	/**
+	 * Levels granted to a set of authorities, merged from the authority permissions of one groups version.
+	 */
+	private record GroupView(long groupsVersion, LongIntHashMap granted) {
+	}
+
+	private record BuilderChanges(PermissionSnapshot.Builder builder, PermissionImplications implications,
+			PermissionChangeLog.Batch batch, PermissionBloomFilter bloomFilter) implements Changes {
+
+		@Override
+		public Changes grant(SpreadsheetPermission permission) {
+			grant(permission.getUser().getUsername(), permission.getSpreadsheet().getId(),
+					maskOf(permission.getLevel(), permission.getSpreadsheet()));
+			return this;
+		}
+
+		@Override
+		public Changes revoke(SpreadsheetPermission permission) {
+			revoke(permission.getUser().getUsername(), permission.getSpreadsheet().getId(),
+					maskOf(permission.getLevel(), permission.getSpreadsheet()));
+			return this;
+		}
+
+		@Override
+		public Changes grant(SpreadsheetGroupPermission permission) {
+			grantGroup(permission.getAuthority(), permission.getSpreadsheet().getId(),
+					maskOf(permission.getLevel(), permission.getSpreadsheet()));
+			return this;
+		}
+
+		@Override
+		public Changes revoke(SpreadsheetGroupPermission permission) {
+			revokeGroup(permission.getAuthority(), permission.getSpreadsheet().getId(),
+					maskOf(permission.getLevel(), permission.getSpreadsheet()));
+			return this;
+		}
+
+		void apply(PermissionChangeLog.Change change) {
+			switch (change.operation()) {
+				case PermissionChangeLog.GRANT -> grant(change.principal(), change.spreadsheetId(), change.mask());
+				case PermissionChangeLog.REVOKE -> revoke(change.principal(), change.spreadsheetId(), change.mask());
+				case PermissionChangeLog.GRANT_GROUP ->
+					grantGroup(change.principal(), change.spreadsheetId(), change.mask());
+				case PermissionChangeLog.REVOKE_GROUP ->
+					revokeGroup(change.principal(), change.spreadsheetId(), change.mask());
+				default -> throw new IllegalArgumentException("Unknown change " + change);
+			}
+		}
+
+		private void grant(String username, long id, int mask) {
+			int previous = builder.entryOf(username, id);
+			builder.put(username, id, entry(granted(previous) | mask, implications));
+			filter(username, id, previous, mask);
+			log(PermissionChangeLog.GRANT, username, id, mask);
+		}
+
+		private void revoke(String username, long id, int mask) {
+			int previous = builder.entryOf(username, id);
+			int entry = entry(granted(previous) & ~mask, implications);
+			builder.put(username, id, entry);
+			filter(username, id, previous, entry);
+			log(PermissionChangeLog.REVOKE, username, id, mask);
+		}
+
+		private void grantGroup(String authority, long id, int mask) {
+			LongIntHashMap spreadsheets = builder.mutableGroupPermissionsOf(authority);
+			int previous = spreadsheets.get(id);
+			spreadsheets.put(id, entry(granted(previous) | mask, implications));
+			filter(authority, id, previous, mask);
+			log(PermissionChangeLog.GRANT_GROUP, authority, id, mask);
+		}
+
+		private void revokeGroup(String authority, long id, int mask) {
+			if (builder.groupPermissionsOf(authority) == null) {
+				return;
+			}
+			LongIntHashMap spreadsheets = builder.mutableGroupPermissionsOf(authority);
+			int previous = spreadsheets.get(id);
+			int entry = entry(granted(previous) & ~mask, implications);
+			spreadsheets.put(id, entry);
+			if (spreadsheets.isEmpty()) {
+				builder.removeGroup(authority);
+			}
+			filter(authority, id, previous, entry);
+			log(PermissionChangeLog.REVOKE_GROUP, authority, id, mask);
+		}
+
+		/**
+		 * Add pairs gaining their first permission to the Bloom filter, and count those losing their last.
+		 */
+		private void filter(String principal, long id, int previous, int next) {
+			if (bloomFilter == null || (previous == 0) == (next == 0)) {
+				return;
+			}
+			if (previous == 0) {
+				bloomFilter.add(principal, id);
+			}
+			else {
+				bloomFilter.remove();
+			}
+		}
+
+		private void log(byte operation, String principal, long id, int mask) {
+			if (batch != null) {
+				batch.add(operation, principal, id, mask);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,39 @@
+package com.jdriven.permission;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.core.ParameterNameDiscoverer;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Remembers the parameter names per {@link Method}, which method security expressions otherwise discover again through
+ * annotations and reflection on every evaluation.
+ */
+@RequiredArgsConstructor
+public class CachingParameterNameDiscoverer implements ParameterNameDiscoverer {
+
+	private static final String[] UNKNOWN = new String[0];
+
+	private final ParameterNameDiscoverer delegate;
+
+	private final Map<Method, String[]> parameterNames = new ConcurrentHashMap<>();
+
+	@Override
+	public String[] getParameterNames(Method method) {
+		String[] names = parameterNames.computeIfAbsent(method, m -> {
+			String[] discovered = delegate.getParameterNames(m);
+			return discovered != null ? discovered : UNKNOWN;
+		});
+		return names != UNKNOWN ? names : null;
+	}
+
+	@Override
+	public String[] getParameterNames(Constructor<?> ctor) {
+		return delegate.getParameterNames(ctor);
+	}
+
+}
@@ -0,0 +1,115 @@
+package com.jdriven.permission;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.EvaluationException;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.ParseException;
+import org.springframework.expression.ParserContext;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.Delegate;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Parses security expressions which compile themselves to bytecode after their first evaluation, once the types they
+ * operate on are known. Expressions that can not be compiled keep being interpreted, and are counted as fallbacks.
+ */
+@Slf4j
+public class CompilingExpressionParser implements ExpressionParser, MeterBinder {
+
+	private final SpelExpressionParser parser;
+
+	private final LongAdder compiled = new LongAdder();
+	private final LongAdder fallbacks = new LongAdder();
+
+	public CompilingExpressionParser(ClassLoader classLoader) {
+		// Mixed mode reverts to interpretation should compiled code fail at runtime
+		this.parser = new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.MIXED, classLoader));
+	}
+
+	@Override
+	public Expression parseExpression(String expressionString) throws ParseException {
+		return new CompilingExpression(parser.parseRaw(expressionString));
+	}
+
+	@Override
+	public Expression parseExpression(String expressionString, ParserContext context) throws ParseException {
+		Expression expression = parser.parseExpression(expressionString, context);
+		return expression instanceof SpelExpression spelExpression ? new CompilingExpression(spelExpression)
+				: expression;
+	}
+
+	public long getCompiled() {
+		return compiled.sum();
+	}
+
+	public long getFallbacks() {
+		return fallbacks.sum();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("spreadsheet.permission.expression.compilation", compiled, LongAdder::sum)
+				.tag("result", "compiled")
+				.description("Security expressions compiled to bytecode")
+				.register(registry);
+		FunctionCounter.builder("spreadsheet.permission.expression.compilation", fallbacks, LongAdder::sum)
+				.tag("result", "interpreted")
+				.description("Security expressions which could not be compiled, and fall back to interpretation")
+				.register(registry);
+	}
+
+	/**
+	 * Evaluation method used by method security, which triggers compilation after the first evaluation.
+	 */
+	private interface Evaluation {
+
+		<T> T getValue(EvaluationContext context, Class<T> desiredResultType) throws EvaluationException;
+
+	}
+
+	@RequiredArgsConstructor
+	private final class CompilingExpression implements Expression {
+
+		@Delegate(excludes = Evaluation.class)
+		private final SpelExpression expression;
+
+		private volatile boolean compilationAttempted;
+
+		@Override
+		public <T> T getValue(EvaluationContext context, Class<T> desiredResultType) throws EvaluationException {
+			T value = expression.getValue(context, desiredResultType);
+			if (!compilationAttempted) {
+				compile();
+			}
+			return value;
+		}
+
+		private synchronized void compile() {
+			if (compilationAttempted) {
+				return;
+			}
+			compilationAttempted = true;
+			if (expression.compileExpression()) {
+				compiled.increment();
+			}
+			else {
+				fallbacks.increment();
+				log.info("Interpreting security expression '{}', as it can not be compiled",
+						expression.getExpressionString());
+			}
+		}
+
+	}
+
+}
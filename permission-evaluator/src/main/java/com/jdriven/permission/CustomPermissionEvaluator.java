@@ -1,64 +1,139 @@
 package com.jdriven.permission;
 
 import java.io.Serializable;
-
-import com.jdriven.model.Spreadsheet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 import org.springframework.security.access.PermissionEvaluator;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
 
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-
+/**
+ * Dispatches permission checks to the {@link TargetPermissionResolver} registered for the target type. Target ids are
+ * dispatched on the fully qualified type name, and domain objects on their class, both with a single map lookup.
+ */
 @Component
-@RequiredArgsConstructor
-@Slf4j
 public class CustomPermissionEvaluator implements PermissionEvaluator {
 
-	private final SpreadsheetPermissionStore store;
+	private final List<TargetPermissionResolver<Object>> resolvers;
 
-	@Override
-	public boolean hasPermission(Authentication authentication, Object targetDomainObject, Object permission) {
-		User principal = (User) authentication.getPrincipal();
+	private final Map<String, TargetPermissionResolver<Object>> resolversByTypeName = new HashMap<>();
 
-		if (targetDomainObject instanceof Spreadsheet spreadsheet) {
-			return hasSpreadsheetPermission(principal, spreadsheet, permission);
+	private final Map<Class<?>, Optional<TargetPermissionResolver<Object>>> resolversByClass = new ConcurrentHashMap<>();
+
+	private final DenialLog denials;
+
+	@SuppressWarnings("unchecked")
+	public CustomPermissionEvaluator(List<? extends TargetPermissionResolver<?>> resolvers, DenialLog denials) {
+		this.resolvers = List.copyOf((List<TargetPermissionResolver<Object>>) resolvers);
+		for (TargetPermissionResolver<Object> resolver : this.resolvers) {
+			TargetPermissionResolver<Object> previous = resolversByTypeName.put(resolver.targetType().getName(),
+					resolver);
+			Assert.state(previous == null, () -> "Multiple resolvers for " + resolver.targetType().getName());
 		}
+		this.denials = denials;
+	}
 
-		return false;
+	@Override
+	public boolean hasPermission(Authentication authentication, Object targetDomainObject, Object permission) {
+		if (targetDomainObject == null) {
+			return false;
+		}
+		TargetPermissionResolver<Object> resolver = resolverFor(targetDomainObject.getClass());
+		if (resolver == null) {
+			return false;
+		}
+		boolean hasPermission = resolver.hasPermission(authentication, targetDomainObject, permission);
+		if (!hasPermission) {
+			denials.record(authentication.getName(), permission, resolver.targetType().getSimpleName());
+		}
+		return hasPermission;
 	}
 
 	@Override
 	public boolean hasPermission(Authentication authentication, Serializable targetId, String targetType,
 			Object permission) {
-		User principal = (User) authentication.getPrincipal();
-
-		if (targetType.equals(Spreadsheet.class.getName())) {
-			return hasSpreadsheetPermission(principal, targetId, permission);
+		TargetPermissionResolver<Object> resolver = resolversByTypeName.get(targetType);
+		if (resolver == null) {
+			return false;
 		}
-
-		return false;
-	}
-
-	private boolean hasSpreadsheetPermission(User principal, Spreadsheet spreadsheet, Object permission) {
-		boolean hasPermission = store.getPermissions().stream().anyMatch(p -> p.getUser().equals(principal)
-				&& p.getSpreadsheet().equals(spreadsheet)
-				&& p.getLevel().equals(permission));
+		boolean hasPermission = resolver.hasPermissionById(authentication, targetId, permission);
 		if (!hasPermission) {
-			log.warn("Denying {} {} access to {}", principal, permission, spreadsheet);
+			denials.record(authentication.getName(), permission, resolver.targetType().getSimpleName());
 		}
 		return hasPermission;
 	}
 
-	private boolean hasSpreadsheetPermission(User principal, Serializable targetId, Object permission) {
-		boolean hasPermission = store.getPermissions().stream().anyMatch(p -> p.getUser().equals(principal)
-				&& p.getSpreadsheet().getId().equals(targetId)
-				&& p.getLevel().equals(permission));
-		if (!hasPermission) {
-			log.warn("Denying {} {} access to Spreadsheet with id {}", principal, permission, targetId);
+	/**
+	 * Batch variant of {@link #hasPermission(Authentication, Object, Object)}, which resolves the permissions of the
+	 * principal once per target type, for all targets of that type.
+	 *
+	 * @return the targets the principal has permission to, in iteration order
+	 */
+	public <T> List<T> filterPermitted(Authentication authentication, Collection<T> targetDomainObjects,
+			Object permission) {
+		Map<TargetPermissionResolver<Object>, Predicate<Object>> permitted = new HashMap<>();
+		Map<String, Integer> denied = new HashMap<>();
+
+		List<T> permittedTargets = new ArrayList<>(targetDomainObjects.size());
+		for (T target : targetDomainObjects) {
+			TargetPermissionResolver<Object> resolver = target == null ? null : resolverFor(target.getClass());
+			if (resolver == null) {
+				continue;
+			}
+			if (permitted.computeIfAbsent(resolver, r -> r.permitted(authentication, permission)).test(target)) {
+				permittedTargets.add(target);
+			}
+			else {
+				denied.merge(resolver.targetType().getSimpleName(), 1, Integer::sum);
+			}
 		}
-		return hasPermission;
+		denied.forEach((targetType, count) -> denials.record(authentication.getName(), permission, targetType, count));
+		return permittedTargets;
 	}
+
+	/**
+	 * Batch variant of {@link #hasPermission(Authentication, Serializable, String, Object)}, which resolves the
+	 * permissions of the principal once for all target ids.
+	 *
+	 * @return the target ids the principal has permission to, in iteration order
+	 */
+	public <T extends Serializable> List<T> filterPermitted(Authentication authentication, Collection<T> targetIds,
+			String targetType, Object permission) {
+		TargetPermissionResolver<Object> resolver = resolversByTypeName.get(targetType);
+		if (resolver == null) {
+			return new ArrayList<>();
+		}
+		Predicate<Serializable> permitted = resolver.permittedIds(authentication, permission);
+
+		List<T> permittedIds = new ArrayList<>(targetIds.size());
+		for (T targetId : targetIds) {
+			if (permitted.test(targetId)) {
+				permittedIds.add(targetId);
+			}
+		}
+		int denied = targetIds.size() - permittedIds.size();
+		if (denied > 0) {
+			denials.record(authentication.getName(), permission, resolver.targetType().getSimpleName(), denied);
+		}
+		return permittedIds;
+	}
+
+	/**
+	 * @return the resolver registered for the type, or the closest supertype, or {@code null} when none
+	 */
+	private TargetPermissionResolver<Object> resolverFor(Class<?> type) {
+		return resolversByClass.computeIfAbsent(type, t -> resolvers.stream()
+				.filter(resolver -> resolver.targetType().isAssignableFrom(t))
+				.reduce((a, b) -> a.targetType().isAssignableFrom(b.targetType()) ? b : a))
+				.orElse(null);
+	}
+
 }
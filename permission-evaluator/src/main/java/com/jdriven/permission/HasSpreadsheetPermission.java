@@ -0,0 +1,21 @@
+package com.jdriven.permission;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Typed alternative to {@code @PreAuthorize("hasPermission(#spreadsheet, 'READ')")}, checked by the
+ * {@link SpreadsheetPermissionAuthorizationManager} without parsing or evaluating an expression.
+ * <p>
+ * The annotated method should have a single {@code Spreadsheet} parameter, or else a single {@code Long} spreadsheet id
+ * parameter, which is resolved once when the application starts.
+ */
+@Target({ ElementType.METHOD, ElementType.ANNOTATION_TYPE })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface HasSpreadsheetPermission {
+
+	PermissionLevel value();
+
+}
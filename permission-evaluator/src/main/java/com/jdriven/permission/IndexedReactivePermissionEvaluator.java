@@ -0,0 +1,51 @@
+package com.jdriven.permission;
+
+import java.io.Serializable;
+import java.util.function.Supplier;
+
+import org.springframework.security.core.Authentication;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Answers reactive permission checks from the same {@link CustomPermissionEvaluator}, and thus the same indexes, as
+ * blocking checks. Indexes held on the heap are read without taking locks, so a check is by default evaluated on the
+ * thread subscribing, typically an event loop thread, rather than being handed off to a scheduler for blocking work.
+ * <p>
+ * Indexes served from a memory mapped snapshot may page fault on a check, which reads from disk; pass a scheduler for
+ * blocking work, such as {@link Schedulers#boundedElastic()}, to keep those reads off the event loop.
+ */
+public class IndexedReactivePermissionEvaluator implements ReactivePermissionEvaluator {
+
+	private final CustomPermissionEvaluator evaluator;
+
+	private final Scheduler scheduler;
+
+	public IndexedReactivePermissionEvaluator(CustomPermissionEvaluator evaluator) {
+		this(evaluator, Schedulers.immediate());
+	}
+
+	public IndexedReactivePermissionEvaluator(CustomPermissionEvaluator evaluator, Scheduler scheduler) {
+		this.evaluator = evaluator;
+		this.scheduler = scheduler;
+	}
+
+	@Override
+	public Mono<Boolean> hasPermission(Authentication authentication, Object targetDomainObject, Object permission) {
+		return check(() -> evaluator.hasPermission(authentication, targetDomainObject, permission));
+	}
+
+	@Override
+	public Mono<Boolean> hasPermission(Authentication authentication, Serializable targetId, String targetType,
+			Object permission) {
+		return check(() -> evaluator.hasPermission(authentication, targetId, targetType, permission));
+	}
+
+	private Mono<Boolean> check(Supplier<Boolean> check) {
+		Mono<Boolean> result = Mono.fromSupplier(check);
+		return scheduler == Schedulers.immediate() ? result : result.subscribeOn(scheduler);
+	}
+
+}
@@ -0,0 +1,146 @@
+package com.jdriven.permission;
+
+/**
+ * Open addressing hash map from primitive {@code long} keys to non-zero {@code int} values, avoiding the boxed keys,
+ * values and entry objects of a {@code HashMap<Long, Integer>}. A value of {@code 0} marks an empty slot, so putting
+ * {@code 0} removes the key.
+ */
+final class LongIntHashMap implements SpreadsheetEntries {
+
+	private static final int MIN_CAPACITY = 4;
+
+	private long[] keys;
+	private int[] values;
+	private int size;
+
+	LongIntHashMap() {
+		this(MIN_CAPACITY);
+	}
+
+	LongIntHashMap(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		while (capacity * 3 / 4 < expectedSize) {
+			capacity <<= 1;
+		}
+		keys = new long[capacity];
+		values = new int[capacity];
+	}
+
+	private LongIntHashMap(LongIntHashMap source) {
+		keys = source.keys.clone();
+		values = source.values.clone();
+		size = source.size;
+	}
+
+	LongIntHashMap copy() {
+		return new LongIntHashMap(this);
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return the value for the key, or {@code 0} when absent
+	 */
+	@Override
+	public int get(long key) {
+		int mask = keys.length - 1;
+		for (int slot = slot(key, mask);; slot = (slot + 1) & mask) {
+			int value = values[slot];
+			if (value == 0 || keys[slot] == key) {
+				return value;
+			}
+		}
+	}
+
+	void put(long key, int value) {
+		if (value == 0) {
+			remove(key);
+			return;
+		}
+		int mask = keys.length - 1;
+		int slot = slot(key, mask);
+		while (values[slot] != 0) {
+			if (keys[slot] == key) {
+				values[slot] = value;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		if (++size > keys.length * 3 / 4) {
+			resize(keys.length << 1);
+		}
+	}
+
+	void remove(long key) {
+		int mask = keys.length - 1;
+		int gap = slot(key, mask);
+		while (keys[gap] != key) {
+			if (values[gap] == 0) {
+				return;
+			}
+			gap = (gap + 1) & mask;
+		}
+		if (values[gap] == 0) {
+			return;
+		}
+		// Shift following entries of the same probe sequence back, so lookups never stop at the emptied slot
+		for (int slot = (gap + 1) & mask; values[slot] != 0; slot = (slot + 1) & mask) {
+			int ideal = slot(keys[slot], mask);
+			if (((slot - ideal) & mask) >= ((slot - gap) & mask)) {
+				keys[gap] = keys[slot];
+				values[gap] = values[slot];
+				gap = slot;
+			}
+		}
+		keys[gap] = 0;
+		values[gap] = 0;
+		size--;
+	}
+
+	void forEach(EntryConsumer action) {
+		for (int i = 0; i < keys.length; i++) {
+			if (values[i] != 0) {
+				action.accept(keys[i], values[i]);
+			}
+		}
+	}
+
+	private void resize(int capacity) {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new long[capacity];
+		values = new int[capacity];
+		int mask = capacity - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] != 0) {
+				int slot = slot(oldKeys[i], mask);
+				while (values[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	private static int slot(long key, int mask) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	@FunctionalInterface
+	interface EntryConsumer {
+
+		void accept(long key, int value);
+
+	}
+
+}
@@ -0,0 +1,307 @@
+package com.jdriven.permission;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.util.Assert;
+
+/**
+ * Read only permission index in a memory mapped file, served from the page cache rather than the heap, and available
+ * as soon as it is mapped. Users are found through an open addressing table on their {@link String#hashCode()}, and
+ * the entries of a user through a binary search over their sorted spreadsheet ids. Permissions granted to authorities
+ * are few, and are read onto the heap when mapping.
+ * <p>
+ * Only the levels granted are stored, and the levels they imply are computed through the {@link PermissionImplications}
+ * the file is mapped with. A file written under other implications is then still served as the rules currently say,
+ * rather than with the levels implied when it was written.
+ * <p>
+ * The file starts with a header, followed by the entries per user, a record per user, the table, the usernames and
+ * finally the authority permissions. A single mapping limits the file to 2 GB, or about 170 million grants.
+ */
+final class MappedPermissions {
+
+	private static final int MAGIC = 0x53505332;
+
+	private static final int HEADER_BYTES = 40;
+
+	private static final int USER_BYTES = 20;
+
+	private final ByteBuffer buffer;
+	private final PermissionImplications implications;
+	private final long version;
+	private final int users;
+	private final int tableMask;
+	private final int usersOffset;
+	private final int tableOffset;
+	private final Map<String, LongIntHashMap> groups;
+
+	private MappedPermissions(ByteBuffer buffer, PermissionImplications implications) {
+		Assert.isTrue(buffer.getInt(0) == MAGIC, "Not a permission snapshot");
+		this.buffer = buffer;
+		this.implications = implications;
+		this.users = buffer.getInt(4);
+		this.tableMask = buffer.getInt(8) - 1;
+		this.usersOffset = buffer.getInt(12);
+		this.tableOffset = buffer.getInt(16);
+		this.version = buffer.getLong(28);
+		this.groups = readGroups(buffer, buffer.getInt(24), implications);
+	}
+
+	/**
+	 * @param implications the rules to expand the levels granted in the file by on every read
+	 */
+	static MappedPermissions map(Path file, PermissionImplications implications) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			// The mapping stays valid after closing the channel, until it is garbage collected
+			return new MappedPermissions(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()),
+					implications);
+		}
+	}
+
+	/**
+	 * @return the version of the store this snapshot was written from
+	 */
+	long version() {
+		return version;
+	}
+
+	Map<String, LongIntHashMap> groups() {
+		return groups;
+	}
+
+	/**
+	 * @return the entries of the user, or {@code null} when none
+	 */
+	SpreadsheetEntries entriesOf(String username) {
+		int user = userIndex(username);
+		return user < 0 ? null : new MappedEntries(buffer, entriesOffset(user), count(user), implications);
+	}
+
+	int entryOf(String username, long spreadsheetId) {
+		int user = userIndex(username);
+		return user < 0 ? 0 : MappedEntries.get(buffer, entriesOffset(user), count(user), spreadsheetId, implications);
+	}
+
+	void forEachUsername(Consumer<String> action) {
+		for (int user = 0; user < users; user++) {
+			int offset = usersOffset + user * USER_BYTES;
+			char[] name = new char[buffer.getInt(offset + 8)];
+			for (int i = 0; i < name.length; i++) {
+				name[i] = buffer.getChar(buffer.getInt(offset + 4) + i * Character.BYTES);
+			}
+			action.accept(new String(name));
+		}
+	}
+
+	void forEachEntry(String username, LongIntHashMap.EntryConsumer action) {
+		int user = userIndex(username);
+		if (user >= 0) {
+			int offset = entriesOffset(user);
+			int count = count(user);
+			for (int i = 0; i < count; i++) {
+				action.accept(buffer.getLong(offset + i * Long.BYTES), BitmaskSpreadsheetPermissionStore
+						.entry(buffer.getInt(offset + count * Long.BYTES + i * Integer.BYTES), implications));
+			}
+		}
+	}
+
+	private int userIndex(String username) {
+		int hash = username.hashCode();
+		for (int slot = slot(hash, tableMask);; slot = (slot + 1) & tableMask) {
+			int user = buffer.getInt(tableOffset + slot * Integer.BYTES) - 1;
+			if (user < 0 || buffer.getInt(usersOffset + user * USER_BYTES) == hash && nameEquals(user, username)) {
+				return user;
+			}
+		}
+	}
+
+	private boolean nameEquals(int user, String username) {
+		int offset = usersOffset + user * USER_BYTES;
+		if (buffer.getInt(offset + 8) != username.length()) {
+			return false;
+		}
+		int nameOffset = buffer.getInt(offset + 4);
+		for (int i = 0; i < username.length(); i++) {
+			if (buffer.getChar(nameOffset + i * Character.BYTES) != username.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int entriesOffset(int user) {
+		return buffer.getInt(usersOffset + user * USER_BYTES + 12);
+	}
+
+	private int count(int user) {
+		return buffer.getInt(usersOffset + user * USER_BYTES + 16);
+	}
+
+	private static int slot(int hash, int mask) {
+		return (hash ^ (hash >>> 16)) * 0x9E3779B9 & mask;
+	}
+
+	private static Map<String, LongIntHashMap> readGroups(ByteBuffer buffer, int offset,
+			PermissionImplications implications) {
+		ByteBuffer groups = buffer.duplicate().position(offset);
+		int count = groups.getInt();
+		Map<String, LongIntHashMap> permissions = new HashMap<>();
+		for (int group = 0; group < count; group++) {
+			char[] name = new char[groups.getInt()];
+			for (int i = 0; i < name.length; i++) {
+				name[i] = groups.getChar();
+			}
+			int entries = groups.getInt();
+			LongIntHashMap spreadsheets = new LongIntHashMap(entries);
+			for (int i = 0; i < entries; i++) {
+				long id = groups.getLong();
+				spreadsheets.put(id, BitmaskSpreadsheetPermissionStore.entry(groups.getInt(), implications));
+			}
+			permissions.put(new String(name), spreadsheets);
+		}
+		return permissions;
+	}
+
+	/**
+	 * Write a snapshot of the user permissions given, and of the authority permissions, keeping only the levels
+	 * granted of each entry.
+	 */
+	static void write(Path file, long version, Collection<String> usernames,
+			Function<String, LongIntHashMap> permissionsOf, Map<String, LongIntHashMap> groups) throws IOException {
+		int users = usernames.size();
+		int tableSize = Integer.highestOneBit(Math.max(1, users) * 2 - 1) << 1;
+		int[] hashes = new int[users];
+		int[] entriesOffsets = new int[users];
+		int[] counts = new int[users];
+		String[] names = usernames.toArray(String[]::new);
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+			out.write(new byte[HEADER_BYTES]);
+
+			for (int user = 0; user < users; user++) {
+				LongIntHashMap spreadsheets = permissionsOf.apply(names[user]);
+				long[] ids = new long[spreadsheets.size()];
+				int[] next = new int[1];
+				spreadsheets.forEach((id, entry) -> ids[next[0]++] = id);
+				Arrays.sort(ids);
+				hashes[user] = names[user].hashCode();
+				entriesOffsets[user] = out.size();
+				counts[user] = ids.length;
+				for (long id : ids) {
+					out.writeLong(id);
+				}
+				for (long id : ids) {
+					out.writeInt(BitmaskSpreadsheetPermissionStore.granted(spreadsheets.get(id)));
+				}
+			}
+
+			int usersOffset = out.size();
+			int tableOffset = usersOffset + users * USER_BYTES;
+			int nameOffset = tableOffset + tableSize * Integer.BYTES;
+			for (int user = 0; user < users; user++) {
+				out.writeInt(hashes[user]);
+				out.writeInt(nameOffset);
+				out.writeInt(names[user].length());
+				out.writeInt(entriesOffsets[user]);
+				out.writeInt(counts[user]);
+				nameOffset += names[user].length() * Character.BYTES;
+			}
+
+			int[] table = new int[tableSize];
+			for (int user = 0; user < users; user++) {
+				int slot = slot(hashes[user], tableSize - 1);
+				while (table[slot] != 0) {
+					slot = (slot + 1) & (tableSize - 1);
+				}
+				table[slot] = user + 1;
+			}
+			for (int slot : table) {
+				out.writeInt(slot);
+			}
+			for (String name : names) {
+				out.writeChars(name);
+			}
+
+			int groupsOffset = out.size();
+			out.writeInt(groups.size());
+			for (Map.Entry<String, LongIntHashMap> group : groups.entrySet()) {
+				out.writeInt(group.getKey().length());
+				out.writeChars(group.getKey());
+				out.writeInt(group.getValue().size());
+				group.getValue().forEach((id, entry) -> {
+					try {
+						out.writeLong(id);
+						out.writeInt(BitmaskSpreadsheetPermissionStore.granted(entry));
+					}
+					catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			}
+			out.flush();
+			// The size saturates at Integer.MAX_VALUE, beyond which offsets no longer fit
+			Assert.state(out.size() < Integer.MAX_VALUE, "Permission snapshot exceeds 2 GB");
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+					.putInt(MAGIC)
+					.putInt(users)
+					.putInt(tableSize)
+					.putInt(usersOffset)
+					.putInt(tableOffset)
+					.putInt(tableOffset + tableSize * Integer.BYTES)
+					.putInt(groupsOffset)
+					.putLong(version)
+					.flip();
+			channel.write(header, 0);
+			channel.force(true);
+		}
+	}
+
+	private record MappedEntries(ByteBuffer buffer, int offset, int count,
+			PermissionImplications implications) implements SpreadsheetEntries {
+
+		@Override
+		public int get(long spreadsheetId) {
+			return get(buffer, offset, count, spreadsheetId, implications);
+		}
+
+		static int get(ByteBuffer buffer, int offset, int count, long spreadsheetId,
+				PermissionImplications implications) {
+			int low = 0;
+			int high = count - 1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				long id = buffer.getLong(offset + middle * Long.BYTES);
+				if (id < spreadsheetId) {
+					low = middle + 1;
+				}
+				else if (id > spreadsheetId) {
+					high = middle - 1;
+				}
+				else {
+					return BitmaskSpreadsheetPermissionStore.entry(
+							buffer.getInt(offset + count * Long.BYTES + middle * Integer.BYTES), implications);
+				}
+			}
+			return 0;
+		}
+
+	}
+
+}
@@ -0,0 +1,103 @@
+package com.jdriven.permission;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Remembers the decisions of a delegate {@link PermissionEvaluator} for the duration of the current request, so that
+ * repeated checks with identical arguments within one request are answered from memory. Outside of a request every
+ * check is passed on to the delegate, as there is no scope to bound how long a decision may be reused.
+ */
+public class MemoizingPermissionEvaluator implements PermissionEvaluator, MeterBinder {
+
+	private static final String MEMO_ATTRIBUTE = MemoizingPermissionEvaluator.class.getName() + ".MEMO";
+
+	private final PermissionEvaluator delegate;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	public MemoizingPermissionEvaluator(PermissionEvaluator delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public boolean hasPermission(Authentication authentication, Object targetDomainObject, Object permission) {
+		return memoize(new Decision(authentication.getName(), targetDomainObject, null, permission),
+				() -> delegate.hasPermission(authentication, targetDomainObject, permission));
+	}
+
+	@Override
+	public boolean hasPermission(Authentication authentication, Serializable targetId, String targetType,
+			Object permission) {
+		return memoize(new Decision(authentication.getName(), targetId, targetType, permission),
+				() -> delegate.hasPermission(authentication, targetId, targetType, permission));
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("spreadsheet.permission.memo", hits, LongAdder::sum)
+				.tag("result", "hit")
+				.description("Permission checks answered from the request scoped memo")
+				.register(registry);
+		FunctionCounter.builder("spreadsheet.permission.memo", misses, LongAdder::sum)
+				.tag("result", "miss")
+				.description("Permission checks passed on to the permission evaluator")
+				.register(registry);
+	}
+
+	private boolean memoize(Decision decision, BooleanSupplier evaluation) {
+		Map<Decision, Boolean> memo = currentMemo();
+		if (memo == null) {
+			return evaluation.getAsBoolean();
+		}
+		Boolean memoized = memo.get(decision);
+		if (memoized != null) {
+			hits.increment();
+			return memoized;
+		}
+		misses.increment();
+		boolean granted = evaluation.getAsBoolean();
+		memo.put(decision, granted);
+		return granted;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<Decision, Boolean> currentMemo() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes == null) {
+			return null;
+		}
+		Map<Decision, Boolean> memo = (Map<Decision, Boolean>) attributes.getAttribute(MEMO_ATTRIBUTE,
+				RequestAttributes.SCOPE_REQUEST);
+		if (memo == null) {
+			memo = new ConcurrentHashMap<>();
+			attributes.setAttribute(MEMO_ATTRIBUTE, memo, RequestAttributes.SCOPE_REQUEST);
+		}
+		return memo;
+	}
+
+	private record Decision(String principal, Object target, String targetType, Object permission) {
+	}
+
+}
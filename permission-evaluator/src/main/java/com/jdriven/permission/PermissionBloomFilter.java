@@ -0,0 +1,120 @@
+package com.jdriven.permission;
+
+import org.springframework.util.Assert;
+
+/**
+ * Bloom filter over pairs of a principal and a spreadsheet id, answering that a pair is definitely absent from the
+ * index without looking up the principal. Pairs can only be added; revoked pairs are counted instead, so the filter can
+ * be rebuilt once they inflate the false positive rate.
+ * <p>
+ * Bits are only set by the writer of the store, before it publishes the snapshot holding the pairs added. Readers that
+ * probe after reading that snapshot are therefore guaranteed to see the bits set, while readers of an older snapshot
+ * may see them or not, which can only cause a false positive.
+ */
+final class PermissionBloomFilter {
+
+	private static final int MIN_BITS = 1 << 10;
+
+	private final long[] words;
+	private final long mask;
+	private final int hashes;
+	private final long capacity;
+	private final double falsePositiveRate;
+
+	private volatile long added;
+	private volatile long removed;
+
+	private PermissionBloomFilter(long capacity, double falsePositiveRate) {
+		Assert.isTrue(falsePositiveRate > 0 && falsePositiveRate < 1, "False positive rate must be between 0 and 1");
+		long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		// A power of two number of bits maps hashes to bits with a mask rather than a division
+		long bits = Math.max(MIN_BITS, Long.highestOneBit(Math.max(1, optimalBits - 1)) << 1);
+		Assert.isTrue(bits <= 1L << 36, () -> "Bloom filter for " + capacity + " pairs exceeds 8 GB");
+		this.words = new long[(int) (bits >>> 6)];
+		this.mask = bits - 1;
+		long optimalHashes = Math.round((double) bits / Math.max(1, capacity) * Math.log(2));
+		this.hashes = (int) Math.max(1, Math.min(16, optimalHashes));
+		this.capacity = capacity;
+		this.falsePositiveRate = falsePositiveRate;
+	}
+
+	/**
+	 * @param capacity the number of pairs expected, beyond which the false positive rate is no longer met
+	 */
+	static PermissionBloomFilter create(long capacity, double falsePositiveRate) {
+		return new PermissionBloomFilter(capacity, falsePositiveRate);
+	}
+
+	/**
+	 * @return the false positive rate the filter was sized for
+	 */
+	double falsePositiveRate() {
+		return falsePositiveRate;
+	}
+
+	void add(String principal, long spreadsheetId) {
+		long hash = hash(principal, spreadsheetId);
+		long increment = increment(hash);
+		for (int i = 0; i < hashes; i++, hash += increment) {
+			long bit = hash & mask;
+			words[(int) (bit >>> 6)] |= 1L << bit;
+		}
+		added++;
+	}
+
+	/**
+	 * Count a pair no longer in the index, of which the bits stay set until the filter is rebuilt.
+	 */
+	void remove() {
+		removed++;
+	}
+
+	/**
+	 * @return {@code false} when the pair was never added, {@code true} when it might have been
+	 */
+	boolean mightContain(String principal, long spreadsheetId) {
+		long hash = hash(principal, spreadsheetId);
+		long increment = increment(hash);
+		for (int i = 0; i < hashes; i++, hash += increment) {
+			long bit = hash & mask;
+			if ((words[(int) (bit >>> 6)] & 1L << bit) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return whether more pairs were added than the filter was sized for, or so many were removed since that
+	 * rebuilding would noticeably reduce false positives
+	 */
+	boolean needsRebuild() {
+		return added > capacity || removed > capacity / 4;
+	}
+
+	long memoryBytes() {
+		return (long) words.length * Long.BYTES;
+	}
+
+	/**
+	 * @return the false positive rate expected for the pairs added so far, including those removed since
+	 */
+	double expectedFalsePositiveRate() {
+		double bits = mask + 1d;
+		return Math.pow(1 - Math.exp(-hashes * (double) added / bits), hashes);
+	}
+
+	private static long hash(String principal, long spreadsheetId) {
+		// Finalizer of MurmurHash3, mixing the cached hash code of the principal with the id
+		long hash = spreadsheetId ^ principal.hashCode() * 0x9E3779B97F4A7C15L;
+		hash = (hash ^ hash >>> 33) * 0xFF51AFD7ED558CCDL;
+		hash = (hash ^ hash >>> 33) * 0xC4CEB9FE1A85EC53L;
+		return hash ^ hash >>> 33;
+	}
+
+	private static long increment(long hash) {
+		// Derive the further hashes from the upper bits, as in double hashing; odd to visit distinct bits
+		return hash >>> 32 | 1;
+	}
+
+}
@@ -0,0 +1,53 @@
+package com.jdriven.permission;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Publishes how well the Bloom filter in front of the {@link BitmaskSpreadsheetPermissionStore} works: the checks it
+ * answered, its false positive rate as expected from its fill and as observed, and the heap it takes.
+ */
+@RequiredArgsConstructor
+public class PermissionBloomFilterMetrics implements MeterBinder {
+
+	private final BitmaskSpreadsheetPermissionStore store;
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("spreadsheet.permission.bloom-filter", store,
+				BitmaskSpreadsheetPermissionStore::bloomFilterNegatives)
+				.tag("result", "negative")
+				.description("Permission checks denied by the Bloom filter, without looking up the index")
+				.register(registry);
+		FunctionCounter.builder("spreadsheet.permission.bloom-filter", store,
+				BitmaskSpreadsheetPermissionStore::bloomFilterFalsePositives)
+				.tag("result", "false-positive")
+				.description("Permission checks passed by the Bloom filter, without any permission in the index")
+				.register(registry);
+		Gauge.builder("spreadsheet.permission.bloom-filter.false-positive-rate", store,
+				BitmaskSpreadsheetPermissionStore::bloomFilterExpectedFalsePositiveRate)
+				.tag("estimate", "expected")
+				.description("False positive rate expected from the pairs added to the Bloom filter")
+				.register(registry);
+		Gauge.builder("spreadsheet.permission.bloom-filter.false-positive-rate", store,
+				PermissionBloomFilterMetrics::observedFalsePositiveRate)
+				.tag("estimate", "observed")
+				.description("Fraction of checks without any permission the Bloom filter passed on to the index")
+				.register(registry);
+		Gauge.builder("spreadsheet.permission.bloom-filter.memory", store,
+				BitmaskSpreadsheetPermissionStore::bloomFilterMemoryBytes)
+				.baseUnit("bytes")
+				.description("Heap taken by the bits of the Bloom filter")
+				.register(registry);
+	}
+
+	private static double observedFalsePositiveRate(BitmaskSpreadsheetPermissionStore store) {
+		double falsePositives = store.bloomFilterFalsePositives();
+		double absent = falsePositives + store.bloomFilterNegatives();
+		return absent == 0 ? Double.NaN : falsePositives / absent;
+	}
+
+}
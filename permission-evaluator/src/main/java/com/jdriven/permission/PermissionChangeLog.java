@@ -0,0 +1,174 @@
+package com.jdriven.permission;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+import org.springframework.util.Assert;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append only log of the changes made on top of a {@link MappedPermissions} snapshot, so they survive a restart
+ * without writing a new snapshot per change. Each batch of changes is appended as one length prefixed block before it
+ * is published; a block cut short by a crash is discarded when the log is replayed.
+ * <p>
+ * Blocks are handed to the operating system, but not forced to disk, so changes survive the process but not
+ * necessarily the machine crashing.
+ */
+@Slf4j
+final class PermissionChangeLog implements Closeable {
+
+	static final byte GRANT = 0;
+	static final byte REVOKE = 1;
+	static final byte GRANT_GROUP = 2;
+	static final byte REVOKE_GROUP = 3;
+
+	private static final int MAGIC = 0x53504c31;
+
+	private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+
+	private final FileChannel channel;
+
+	private PermissionChangeLog(FileChannel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * Open the log of changes on top of the snapshot with the version given, first replaying the changes logged so
+	 * far. A log written for another snapshot is replaced by an empty log, as its changes are part of the snapshot.
+	 */
+	static PermissionChangeLog open(Path file, long snapshotVersion, Consumer<Change> replay) throws IOException {
+		if (!Files.exists(file)) {
+			return create(file, snapshotVersion);
+		}
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getLong() != snapshotVersion) {
+				channel.close();
+				return create(file, snapshotVersion);
+			}
+			long changes = 0;
+			while (buffer.remaining() >= Integer.BYTES) {
+				int length = buffer.getInt();
+				if (length > buffer.remaining()) {
+					buffer.position(buffer.position() - Integer.BYTES);
+					break;
+				}
+				ByteBuffer block = buffer.slice(buffer.position(), length);
+				buffer.position(buffer.position() + length);
+				while (block.hasRemaining()) {
+					replay.accept(readChange(block));
+					changes++;
+				}
+			}
+			if (buffer.position() < channel.size()) {
+				log.warn("Discarding {} bytes of an incomplete block at the end of {}",
+						channel.size() - buffer.position(), file);
+				channel.truncate(buffer.position());
+			}
+			log.info("Replayed {} changes from {}", changes, file);
+			channel.position(channel.size());
+			return new PermissionChangeLog(channel);
+		}
+		catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Replace the log with an empty log of the changes on top of the snapshot with the version given.
+	 */
+	static PermissionChangeLog create(Path file, long snapshotVersion) throws IOException {
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			channel.write(ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putLong(snapshotVersion).flip());
+			channel.force(true);
+		}
+		Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		return new PermissionChangeLog(channel);
+	}
+
+	void append(Batch batch) {
+		if (batch.changes.size() == 0) {
+			return;
+		}
+		ByteBuffer block = ByteBuffer.allocate(Integer.BYTES + batch.changes.size())
+				.putInt(batch.changes.size())
+				.put(batch.changes.toByteArray())
+				.flip();
+		try {
+			while (block.hasRemaining()) {
+				channel.write(block);
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Failed to log permission changes", e);
+		}
+	}
+
+	/**
+	 * @return whether any changes were logged on top of the snapshot
+	 */
+	boolean hasChanges() throws IOException {
+		return channel.size() > HEADER_BYTES;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private static Change readChange(ByteBuffer block) {
+		byte operation = block.get();
+		byte[] principal = new byte[block.getShort() & 0xFFFF];
+		block.get(principal);
+		return new Change(operation, new String(principal, StandardCharsets.UTF_8), block.getLong(), block.get());
+	}
+
+	/**
+	 * A grant or revoke of the levels in the mask, to a user or authority.
+	 */
+	record Change(byte operation, String principal, long spreadsheetId, int mask) {
+	}
+
+	/**
+	 * Changes collected while a batch is applied, to be appended only once the whole batch succeeded.
+	 */
+	static final class Batch {
+
+		private final ByteArrayOutputStream changes = new ByteArrayOutputStream();
+		private final DataOutputStream out = new DataOutputStream(changes);
+
+		void add(byte operation, String principal, long spreadsheetId, int mask) {
+			byte[] name = principal.getBytes(StandardCharsets.UTF_8);
+			Assert.isTrue(name.length <= 0xFFFF, "Principal name too long");
+			try {
+				out.writeByte(operation);
+				out.writeShort(name.length);
+				out.write(name);
+				out.writeLong(spreadsheetId);
+				out.writeByte(mask);
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+	}
+
+}
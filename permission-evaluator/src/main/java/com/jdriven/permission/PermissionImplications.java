@@ -0,0 +1,85 @@
+package com.jdriven.permission;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.springframework.util.Assert;
+
+/**
+ * Implication rules between {@link PermissionLevel}s, declared like a {@code RoleHierarchy}: {@code WRITE > READ}
+ * grants read permission to anyone with write permission, and {@code OWNER > WRITE > READ} chains rules. The closure
+ * of every combination of granted levels is computed up front, so expanding granted levels into effective levels is a
+ * single array lookup.
+ */
+public final class PermissionImplications {
+
+	public static final PermissionImplications NONE = of();
+
+	private final int[] effective;
+
+	private PermissionImplications(int[] effective) {
+		this.effective = effective;
+	}
+
+	public static PermissionImplications of(String... rules) {
+		return of(Arrays.asList(rules));
+	}
+
+	public static PermissionImplications of(Collection<String> rules) {
+		PermissionLevel[] levels = PermissionLevel.values();
+		int[] implied = new int[levels.length];
+		for (PermissionLevel level : levels) {
+			implied[level.ordinal()] = level.mask();
+		}
+		for (String rule : rules) {
+			String[] chain = rule.split(">");
+			Assert.isTrue(chain.length > 1, () -> "Expected a rule like 'WRITE > READ', but got " + rule);
+			for (int i = 1; i < chain.length; i++) {
+				implied[levelOf(chain[i - 1]).ordinal()] |= levelOf(chain[i]).mask();
+			}
+		}
+
+		// Repeat until no level implies anything new, to follow rules spread over several declarations
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (PermissionLevel level : levels) {
+				int closure = effectiveOf(implied, implied[level.ordinal()]);
+				changed |= closure != implied[level.ordinal()];
+				implied[level.ordinal()] = closure;
+			}
+		}
+
+		int[] effective = new int[1 << levels.length];
+		for (int granted = 0; granted < effective.length; granted++) {
+			effective[granted] = effectiveOf(implied, granted);
+		}
+		return new PermissionImplications(effective);
+	}
+
+	/**
+	 * @param granted the mask of the levels granted explicitly
+	 * @return the mask of the granted levels, together with all levels they imply
+	 */
+	public int effective(int granted) {
+		return effective[granted];
+	}
+
+	private static int effectiveOf(int[] implied, int granted) {
+		int effective = granted;
+		for (PermissionLevel level : PermissionLevel.values()) {
+			if ((granted & level.mask()) != 0) {
+				effective |= implied[level.ordinal()];
+			}
+		}
+		return effective;
+	}
+
+	private static PermissionLevel levelOf(String name) {
+		String trimmed = name.trim();
+		int mask = PermissionLevel.maskOf(trimmed);
+		Assert.isTrue(mask != 0, () -> "Unknown permission level " + trimmed);
+		return PermissionLevel.valueOf(trimmed);
+	}
+
+}
@@ -0,0 +1,39 @@
+package com.jdriven.permission;
+
+/**
+ * Spreadsheet permission levels, each encoded as a single bit so the levels granted on a spreadsheet fit in one int.
+ * Levels may imply other levels through {@link PermissionImplications}.
+ */
+public enum PermissionLevel {
+
+	READ, WRITE, PRINT, OWNER;
+
+	private final int mask = 1 << ordinal();
+
+	public int mask() {
+		return mask;
+	}
+
+	/**
+	 * Resolve the mask for a permission as passed into {@code hasPermission(..., 'READ')} expressions, without the
+	 * exception handling cost of {@link #valueOf(String)}.
+	 *
+	 * @return the mask of the matching level, or {@code 0} when the permission is not a known level
+	 */
+	public static int maskOf(Object permission) {
+		if (permission instanceof PermissionLevel level) {
+			return level.mask;
+		}
+		if (permission instanceof String name) {
+			return switch (name) {
+				case "READ" -> READ.mask;
+				case "WRITE" -> WRITE.mask;
+				case "PRINT" -> PRINT.mask;
+				case "OWNER" -> OWNER.mask;
+				default -> 0;
+			};
+		}
+		return 0;
+	}
+
+}
@@ -0,0 +1,313 @@
+package com.jdriven.permission;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.util.Assert;
+
+/**
+ * Immutable, versioned view of the permission index. Users are spread over shards, so that publishing a change only
+ * copies the shards and per user maps it touches, while every other reference is shared with the previous snapshot.
+ * Permissions granted to authorities are kept apart, in a single map as there are far fewer authorities than users.
+ * <p>
+ * User permissions may be based on a {@link MappedPermissions} file, in which case the sharded maps only hold the
+ * entries changed since, with {@link #REVOKED} marking entries revoked from the file.
+ */
+final class PermissionSnapshot {
+
+	static final PermissionSnapshot EMPTY = new PermissionSnapshot(0, emptyShards(), 0, Map.of(), null);
+
+	/**
+	 * Entry for a spreadsheet of which all levels were revoked since the mapped file. It has none of the effective
+	 * level bits set, so checks against it fail without special casing.
+	 */
+	static final int REVOKED = 1 << 31;
+
+	private static final int SHARDS = 64;
+
+	private final long version;
+	private final Map<String, LongIntHashMap>[] shards;
+	private final long groupsVersion;
+	private final Map<String, LongIntHashMap> groups;
+	private final MappedPermissions base;
+
+	private PermissionSnapshot(long version, Map<String, LongIntHashMap>[] shards, long groupsVersion,
+			Map<String, LongIntHashMap> groups, MappedPermissions base) {
+		this.version = version;
+		this.shards = shards;
+		this.groupsVersion = groupsVersion;
+		this.groups = groups;
+		this.base = base;
+	}
+
+	long version() {
+		return version;
+	}
+
+	/**
+	 * @return the version of the authority permissions, only incremented by batches that change them
+	 */
+	long groupsVersion() {
+		return groupsVersion;
+	}
+
+	boolean hasGroupPermissions() {
+		return !groups.isEmpty();
+	}
+
+	/**
+	 * @return the spreadsheet permissions of the user changed since the mapped file if any, which must not be
+	 * modified, or {@code null} when none
+	 */
+	LongIntHashMap permissionsOf(String username) {
+		return shards[shard(username)].get(username);
+	}
+
+	/**
+	 * @return the entries of the user, combining the mapped file with the changes since, or {@code null} when none
+	 */
+	SpreadsheetEntries entriesOf(String username) {
+		LongIntHashMap changed = permissionsOf(username);
+		SpreadsheetEntries mapped = base == null ? null : base.entriesOf(username);
+		if (mapped == null) {
+			return changed;
+		}
+		if (changed == null) {
+			return mapped;
+		}
+		return id -> {
+			int entry = changed.get(id);
+			return entry != 0 ? entry : mapped.get(id);
+		};
+	}
+
+	/**
+	 * @return a copy of the entries of the user, combining the mapped file with the changes since
+	 */
+	LongIntHashMap copyOfEntries(String username) {
+		LongIntHashMap changed = permissionsOf(username);
+		if (base == null) {
+			return changed == null ? new LongIntHashMap() : changed.copy();
+		}
+		LongIntHashMap entries = new LongIntHashMap();
+		base.forEachEntry(username, entries::put);
+		if (changed != null) {
+			changed.forEach((id, entry) -> entries.put(id, entry == REVOKED ? 0 : entry));
+		}
+		return entries;
+	}
+
+	/**
+	 * @return the names of all users with permissions, in the mapped file or changed since
+	 */
+	Set<String> usernames() {
+		Set<String> usernames = new HashSet<>();
+		if (base != null) {
+			base.forEachUsername(usernames::add);
+		}
+		for (Map<String, LongIntHashMap> shard : shards) {
+			usernames.addAll(shard.keySet());
+		}
+		return usernames;
+	}
+
+	/**
+	 * Visit every pair of a user or authority and a spreadsheet they hold any permission on, without copying entries.
+	 */
+	void forEachGrant(GrantConsumer action) {
+		if (base != null) {
+			base.forEachUsername(username -> {
+				LongIntHashMap changed = permissionsOf(username);
+				base.forEachEntry(username, (id, entry) -> {
+					if (changed == null || changed.get(id) == 0) {
+						action.accept(username, id);
+					}
+				});
+			});
+		}
+		for (Map<String, LongIntHashMap> shard : shards) {
+			shard.forEach((username, changed) -> changed.forEach((id, entry) -> {
+				if (entry != REVOKED) {
+					action.accept(username, id);
+				}
+			}));
+		}
+		groups.forEach((authority, permissions) -> permissions.forEach((id, entry) -> action.accept(authority, id)));
+	}
+
+	Map<String, LongIntHashMap> groups() {
+		return groups;
+	}
+
+	/**
+	 * @return the spreadsheet permissions of the authority, which must not be modified, or {@code null} when none
+	 */
+	LongIntHashMap groupPermissionsOf(String authority) {
+		return groups.get(authority);
+	}
+
+	Builder toBuilder() {
+		return new Builder(this);
+	}
+
+	/**
+	 * @param shards user permissions spread over shards by {@link #shard(String)}, as created by {@link #newShards()}
+	 * @return the next version of this snapshot, with only the user permissions given, and the same authority
+	 * permissions
+	 */
+	PermissionSnapshot replaceAll(Map<String, LongIntHashMap>[] shards) {
+		Assert.isTrue(shards.length == SHARDS, "Expected " + SHARDS + " shards");
+		return new PermissionSnapshot(version + 1, shards, groupsVersion, groups, null);
+	}
+
+	/**
+	 * @return the next version of this snapshot, serving all permissions from the mapped file
+	 */
+	PermissionSnapshot replaceAll(MappedPermissions base) {
+		return new PermissionSnapshot(version + 1, emptyShards(), groupsVersion + 1, base.groups(), base);
+	}
+
+	@SuppressWarnings("unchecked")
+	static Map<String, LongIntHashMap>[] newShards() {
+		Map<String, LongIntHashMap>[] shards = new Map[SHARDS];
+		Arrays.setAll(shards, shard -> new HashMap<>());
+		return shards;
+	}
+
+	static int shard(String username) {
+		int hash = username.hashCode();
+		return (hash ^ (hash >>> 16)) & (SHARDS - 1);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, LongIntHashMap>[] emptyShards() {
+		Map<String, LongIntHashMap>[] shards = new Map[SHARDS];
+		Arrays.fill(shards, Map.of());
+		return shards;
+	}
+
+	@FunctionalInterface
+	interface GrantConsumer {
+
+		void accept(String principal, long spreadsheetId);
+
+	}
+
+	static final class Builder {
+
+		private final long version;
+		private final Map<String, LongIntHashMap>[] shards;
+		private final boolean[] copiedShards = new boolean[SHARDS];
+		private final Set<String> copiedUsers = new HashSet<>();
+		private final long groupsVersion;
+		private Map<String, LongIntHashMap> groups;
+		private boolean groupsChanged;
+		private final Set<String> copiedGroups = new HashSet<>();
+		private final MappedPermissions base;
+
+		private Builder(PermissionSnapshot snapshot) {
+			this.version = snapshot.version;
+			this.shards = snapshot.shards.clone();
+			this.groupsVersion = snapshot.groupsVersion;
+			this.groups = snapshot.groups;
+			this.base = snapshot.base;
+		}
+
+		LongIntHashMap permissionsOf(String username) {
+			return shards[shard(username)].get(username);
+		}
+
+		/**
+		 * @return the current entry of the user for the spreadsheet, or {@code 0} when none
+		 */
+		int entryOf(String username, long spreadsheetId) {
+			LongIntHashMap changed = permissionsOf(username);
+			int entry = changed == null ? 0 : changed.get(spreadsheetId);
+			if (entry == 0) {
+				return base == null ? 0 : base.entryOf(username, spreadsheetId);
+			}
+			return entry == REVOKED ? 0 : entry;
+		}
+
+		/**
+		 * Set the entry of the user for the spreadsheet, only keeping it when it differs from the mapped file.
+		 */
+		void put(String username, long spreadsheetId, int entry) {
+			int mapped = base == null ? 0 : base.entryOf(username, spreadsheetId);
+			int change = entry == mapped ? 0 : entry == 0 ? REVOKED : entry;
+			LongIntHashMap changed = permissionsOf(username);
+			if (change == 0 && (changed == null || changed.get(spreadsheetId) == 0)) {
+				return;
+			}
+			LongIntHashMap spreadsheets = mutablePermissionsOf(username);
+			spreadsheets.put(spreadsheetId, change);
+			if (spreadsheets.isEmpty()) {
+				remove(username);
+			}
+		}
+
+		/**
+		 * @return a copy of the spreadsheet permissions of the user, private to this builder and safe to modify
+		 */
+		LongIntHashMap mutablePermissionsOf(String username) {
+			Map<String, LongIntHashMap> users = mutableShard(shard(username));
+			if (copiedUsers.add(username)) {
+				LongIntHashMap permissions = users.get(username);
+				users.put(username, permissions == null ? new LongIntHashMap() : permissions.copy());
+			}
+			return users.get(username);
+		}
+
+		void remove(String username) {
+			mutableShard(shard(username)).remove(username);
+			copiedUsers.remove(username);
+		}
+
+		LongIntHashMap groupPermissionsOf(String authority) {
+			return groups.get(authority);
+		}
+
+		/**
+		 * @return a copy of the spreadsheet permissions of the authority, private to this builder and safe to modify
+		 */
+		LongIntHashMap mutableGroupPermissionsOf(String authority) {
+			Map<String, LongIntHashMap> groups = mutableGroups();
+			if (copiedGroups.add(authority)) {
+				LongIntHashMap permissions = groups.get(authority);
+				groups.put(authority, permissions == null ? new LongIntHashMap() : permissions.copy());
+			}
+			return groups.get(authority);
+		}
+
+		void removeGroup(String authority) {
+			mutableGroups().remove(authority);
+			copiedGroups.remove(authority);
+		}
+
+		PermissionSnapshot build() {
+			return new PermissionSnapshot(version + 1, shards, groupsChanged ? groupsVersion + 1 : groupsVersion,
+					groups, base);
+		}
+
+		private Map<String, LongIntHashMap> mutableGroups() {
+			if (!groupsChanged) {
+				groups = new HashMap<>(groups);
+				groupsChanged = true;
+			}
+			return groups;
+		}
+
+		private Map<String, LongIntHashMap> mutableShard(int shard) {
+			if (!copiedShards[shard]) {
+				shards[shard] = new HashMap<>(shards[shard]);
+				copiedShards[shard] = true;
+			}
+			return shards[shard];
+		}
+
+	}
+
+}
@@ -0,0 +1,21 @@
+package com.jdriven.permission;
+
+import java.io.Serializable;
+
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.core.Authentication;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of the {@link PermissionEvaluator}, for services that must not block the thread checking
+ * permissions.
+ */
+public interface ReactivePermissionEvaluator {
+
+	Mono<Boolean> hasPermission(Authentication authentication, Object targetDomainObject, Object permission);
+
+	Mono<Boolean> hasPermission(Authentication authentication, Serializable targetId, String targetType,
+			Object permission);
+
+}
@@ -0,0 +1,53 @@
+package com.jdriven.permission;
+
+import java.io.Serializable;
+
+import com.jdriven.model.Spreadsheet;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.Pointcut;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.ReactiveAuthorizationManager;
+import org.springframework.security.core.Authentication;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+/**
+ * Checks {@link HasSpreadsheetPermission} annotated methods returning a {@code Mono} or {@code Flux} through the
+ * {@link ReactivePermissionEvaluator}, with the authentication of the subscriber rather than of the calling thread.
+ * <p>
+ * As with the {@link SpreadsheetPermissionAuthorizationManager}, the permission level and spreadsheet argument of each
+ * method are resolved once by the {@link #pointcut()}.
+ */
+@RequiredArgsConstructor
+public class ReactiveSpreadsheetPermissionAuthorizationManager
+		implements ReactiveAuthorizationManager<MethodInvocation> {
+
+	private static final String SPREADSHEET_TYPE = Spreadsheet.class.getName();
+
+	private final ReactivePermissionEvaluator evaluator;
+
+	private final SpreadsheetPermissionBindings bindings = new SpreadsheetPermissionBindings(true);
+
+	public Pointcut pointcut() {
+		return bindings.pointcut();
+	}
+
+	@Override
+	public Mono<AuthorizationDecision> check(Mono<Authentication> authentication, MethodInvocation invocation) {
+		SpreadsheetPermissionBindings.Binding binding = bindings.bindingOf(invocation);
+		if (binding == null) {
+			return Mono.empty();
+		}
+		Object argument = binding.argument(invocation);
+		return authentication
+				.flatMap(principal -> binding.byId()
+						? evaluator.hasPermission(principal, (Serializable) argument, SPREADSHEET_TYPE,
+								binding.level())
+						: evaluator.hasPermission(principal, argument, binding.level()))
+				.defaultIfEmpty(false)
+				.map(AuthorizationDecision::new);
+	}
+
+}
@@ -0,0 +1,14 @@
+package com.jdriven.permission;
+
+/**
+ * Read access to the index entries of a user or authority, by spreadsheet id, regardless of where they are stored.
+ */
+@FunctionalInterface
+interface SpreadsheetEntries {
+
+	/**
+	 * @return the entry for the spreadsheet, or {@code 0} when absent
+	 */
+	int get(long spreadsheetId);
+
+}
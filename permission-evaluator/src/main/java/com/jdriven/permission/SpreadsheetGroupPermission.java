@@ -0,0 +1,16 @@
+package com.jdriven.permission;
+
+import com.jdriven.model.Spreadsheet;
+
+import lombok.Value;
+
+/**
+ * Grants a permission to every user holding the authority, such as a {@code ROLE_FINANCE} role or
+ * {@code GROUP_AUDITORS} group, rather than to a single user.
+ */
+@Value
+public class SpreadsheetGroupPermission {
+	String authority;
+	Spreadsheet spreadsheet;
+	String level;
+}
@@ -0,0 +1,52 @@
+package com.jdriven.permission;
+
+import java.io.Serializable;
+import java.util.function.Supplier;
+
+import com.jdriven.model.Spreadsheet;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.Pointcut;
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Checks {@link HasSpreadsheetPermission} annotated methods by calling straight into the {@link PermissionEvaluator},
+ * bypassing expression parsing, evaluation context creation and parameter name discovery.
+ * <p>
+ * The permission level and spreadsheet argument of each method are resolved by the {@link #pointcut()} while proxies
+ * are created at startup, which also fails fast on methods without a suitable argument. Methods returning a publisher
+ * are left to the {@link ReactiveSpreadsheetPermissionAuthorizationManager}.
+ */
+@RequiredArgsConstructor
+public class SpreadsheetPermissionAuthorizationManager implements AuthorizationManager<MethodInvocation> {
+
+	private static final String SPREADSHEET_TYPE = Spreadsheet.class.getName();
+
+	private final PermissionEvaluator evaluator;
+
+	private final SpreadsheetPermissionBindings bindings = new SpreadsheetPermissionBindings(false);
+
+	public Pointcut pointcut() {
+		return bindings.pointcut();
+	}
+
+	@Override
+	public AuthorizationDecision check(Supplier<Authentication> authentication, MethodInvocation invocation) {
+		SpreadsheetPermissionBindings.Binding binding = bindings.bindingOf(invocation);
+		if (binding == null) {
+			return null;
+		}
+		Object argument = binding.argument(invocation);
+		boolean granted = binding.byId()
+				? evaluator.hasPermission(authentication.get(), (Serializable) argument, SPREADSHEET_TYPE,
+						binding.level())
+				: evaluator.hasPermission(authentication.get(), argument, binding.level());
+		return new AuthorizationDecision(granted);
+	}
+
+}
@@ -0,0 +1,106 @@
+package com.jdriven.permission;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.jdriven.model.Spreadsheet;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.reactivestreams.Publisher;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+/**
+ * Resolves the permission level and spreadsheet argument of {@link HasSpreadsheetPermission} annotated methods once
+ * per method, for either the methods returning a {@link Publisher} or all others.
+ */
+final class SpreadsheetPermissionBindings {
+
+	private final boolean reactive;
+
+	private final Map<Method, Binding> bindings = new ConcurrentHashMap<>();
+
+	SpreadsheetPermissionBindings(boolean reactive) {
+		this.reactive = reactive;
+	}
+
+	Pointcut pointcut() {
+		return new StaticMethodMatcherPointcut() {
+			@Override
+			public boolean matches(Method method, Class<?> targetClass) {
+				return bindingFor(method, targetClass) != null;
+			}
+		};
+	}
+
+	/**
+	 * @return the binding of the method invoked, or {@code null} when not annotated
+	 */
+	Binding bindingOf(MethodInvocation invocation) {
+		Binding binding = bindings.get(invocation.getMethod());
+		if (binding != null) {
+			return binding;
+		}
+		Object target = invocation.getThis();
+		return bindingFor(invocation.getMethod(), target != null ? target.getClass() : null);
+	}
+
+	private Binding bindingFor(Method method, Class<?> targetClass) {
+		Binding binding = bindings.get(method);
+		if (binding != null) {
+			return binding;
+		}
+		Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+		if (Publisher.class.isAssignableFrom(specificMethod.getReturnType()) != reactive) {
+			return null;
+		}
+		HasSpreadsheetPermission annotation = AnnotatedElementUtils.findMergedAnnotation(specificMethod,
+				HasSpreadsheetPermission.class);
+		if (annotation == null) {
+			return null;
+		}
+		binding = bind(specificMethod, annotation.value());
+		bindings.put(method, binding);
+		return binding;
+	}
+
+	private static Binding bind(Method method, PermissionLevel level) {
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		int spreadsheetIndex = indexOf(method, parameterTypes, Spreadsheet.class, Spreadsheet.class);
+		if (spreadsheetIndex >= 0) {
+			return new Binding(level, spreadsheetIndex, false);
+		}
+		int idIndex = indexOf(method, parameterTypes, Long.class, long.class);
+		if (idIndex >= 0) {
+			return new Binding(level, idIndex, true);
+		}
+		throw new IllegalStateException("@HasSpreadsheetPermission method " + method
+				+ " needs a Spreadsheet or Long spreadsheet id parameter");
+	}
+
+	private static int indexOf(Method method, Class<?>[] parameterTypes, Class<?> type, Class<?> alternativeType) {
+		int index = -1;
+		for (int i = 0; i < parameterTypes.length; i++) {
+			if (parameterTypes[i] == type || parameterTypes[i] == alternativeType) {
+				if (index >= 0) {
+					throw new IllegalStateException("@HasSpreadsheetPermission method " + method
+							+ " has more than one " + type.getSimpleName() + " parameter");
+				}
+				index = i;
+			}
+		}
+		return index;
+	}
+
+	record Binding(PermissionLevel level, int parameterIndex, boolean byId) {
+
+		Object argument(MethodInvocation invocation) {
+			return invocation.getArguments()[parameterIndex];
+		}
+
+	}
+
+}
@@ -0,0 +1,22 @@
+package com.jdriven.permission;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Filters the collection returned from the annotated method down to the spreadsheets the current user has the given
+ * permission to, using a single batch check rather than an expression per element as {@code @PostFilter} would. The
+ * returned collection must be mutable.
+ */
+@Target({ ElementType.METHOD, ElementType.ANNOTATION_TYPE })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SpreadsheetPermissionFilter {
+
+	/**
+	 * @return the permission level, such as {@code READ}
+	 */
+	String value();
+
+}
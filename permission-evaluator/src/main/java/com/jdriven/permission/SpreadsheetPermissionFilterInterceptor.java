@@ -0,0 +1,57 @@
+package com.jdriven.permission;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Applies {@link SpreadsheetPermissionFilter} to the collections returned from annotated methods.
+ */
+@RequiredArgsConstructor
+public class SpreadsheetPermissionFilterInterceptor implements MethodInterceptor {
+
+	private final CustomPermissionEvaluator evaluator;
+
+	private final Map<Method, Optional<String>> permissions = new ConcurrentHashMap<>();
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		// Methods may reach this interceptor through a pointcut matching more than the annotated methods
+		Optional<String> permission = permissions.computeIfAbsent(invocation.getMethod(),
+				method -> Optional.ofNullable(
+						AnnotatedElementUtils.findMergedAnnotation(method, SpreadsheetPermissionFilter.class))
+						.map(SpreadsheetPermissionFilter::value));
+		if (permission.isEmpty()) {
+			return invocation.proceed();
+		}
+		Object returned = invocation.proceed();
+		if (!(returned instanceof Collection<?> targets) || targets.isEmpty()) {
+			return returned;
+		}
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (authentication == null) {
+			throw new AuthenticationCredentialsNotFoundException(
+					"An Authentication object was not found in the SecurityContext");
+		}
+		List<?> permitted = evaluator.filterPermitted(authentication, targets, permission.get());
+		if (permitted.size() != targets.size()) {
+			targets.clear();
+			((Collection<Object>) targets).addAll(permitted);
+		}
+		return returned;
+	}
+
+}
@@ -0,0 +1,380 @@
+package com.jdriven.permission;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.util.Assert;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Loads grants in bulk from a file into a {@link BitmaskSpreadsheetPermissionStore}, replacing all of its user
+ * permissions at once when done, while permissions granted to authorities are kept. A single thread streams the file
+ * in chunks of {@value #CHUNK_SIZE} grants, which worker threads parse and index in parallel. At most two chunks per
+ * worker are queued, so memory use beyond the index itself stays bounded however large the file is.
+ * <p>
+ * Files are either CSV, with a {@code username,spreadsheetId,level} grant per line, or the compact binary format
+ * written by a {@link BinaryWriter}, which stores each username once for all of its grants.
+ */
+@Slf4j
+public class SpreadsheetPermissionLoader {
+
+	static final int CHUNK_SIZE = 16_384;
+
+	// Starts with a byte that no UTF-8 text starts with, so a CSV file is never taken for a binary one
+	private static final int MAGIC = 0x89535047;
+
+	private static final int ALL_LEVELS = (1 << PermissionLevel.values().length) - 1;
+
+	private static final Chunk END = new Chunk(0, 0);
+
+	private final BitmaskSpreadsheetPermissionStore store;
+
+	private final int parallelism;
+
+	public SpreadsheetPermissionLoader(BitmaskSpreadsheetPermissionStore store, int parallelism) {
+		Assert.isTrue(parallelism > 0, "Parallelism must be positive");
+		this.store = store;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Load all grants in the file, and only then replace the user permissions in the store. When the file can not be read
+	 * or holds an invalid grant, the store is left unchanged.
+	 *
+	 * @return the number of grants loaded
+	 */
+	public long load(Path file) throws IOException {
+		long start = System.nanoTime();
+		Index index = new Index(store.implications());
+		BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(parallelism * 2);
+		AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+		ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+		long grants;
+		try {
+			List<Future<?>> tasks = new ArrayList<>(parallelism);
+			for (int i = 0; i < parallelism; i++) {
+				tasks.add(workers.submit(() -> index(index, chunks, failure)));
+			}
+			try {
+				grants = read(file, chunks, failure);
+			}
+			finally {
+				for (int i = 0; i < parallelism; i++) {
+					chunks.put(END);
+				}
+			}
+			for (Future<?> task : tasks) {
+				task.get();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while loading " + file, e);
+		}
+		catch (ExecutionException e) {
+			throw new IllegalStateException("Failed to load " + file, e.getCause());
+		}
+		finally {
+			workers.shutdownNow();
+		}
+		if (failure.get() != null) {
+			throw failure.get();
+		}
+
+		store.replaceAll(index.shards);
+		log.info("Loaded {} grants from {} in {} ms", grants, file,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		return grants;
+	}
+
+	private long read(Path file, BlockingQueue<Chunk> chunks, AtomicReference<RuntimeException> failure)
+			throws IOException, InterruptedException {
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+			in.mark(Integer.BYTES);
+			DataInputStream data = new DataInputStream(in);
+			boolean binary;
+			try {
+				binary = data.readInt() == MAGIC;
+			}
+			catch (EOFException e) {
+				binary = false;
+			}
+			if (binary) {
+				return readBinary(data, chunks, failure);
+			}
+			in.reset();
+			return readCsv(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), chunks, failure);
+		}
+	}
+
+	private long readCsv(BufferedReader reader, BlockingQueue<Chunk> chunks,
+			AtomicReference<RuntimeException> failure) throws IOException, InterruptedException {
+		long grants = 0;
+		long lineNumber = 0;
+		Chunk chunk = new Chunk(1, CHUNK_SIZE);
+		for (String line = reader.readLine(); line != null && failure.get() == null; line = reader.readLine()) {
+			lineNumber++;
+			if (chunk.isFull()) {
+				chunks.put(chunk);
+				chunk = new Chunk(lineNumber, CHUNK_SIZE);
+			}
+			// Blank lines are kept in the chunk and skipped when parsing, to report accurate line numbers
+			chunk.lines[chunk.size++] = line;
+			if (!line.isBlank()) {
+				grants++;
+			}
+		}
+		chunks.put(chunk);
+		return grants;
+	}
+
+	private long readBinary(DataInputStream data, BlockingQueue<Chunk> chunks,
+			AtomicReference<RuntimeException> failure) throws IOException, InterruptedException {
+		long grants = 0;
+		Chunk chunk = new Chunk(0, CHUNK_SIZE);
+		while (failure.get() == null) {
+			String username;
+			try {
+				username = data.readUTF();
+			}
+			catch (EOFException e) {
+				break;
+			}
+			int count = data.readInt();
+			for (int i = 0; i < count; i++) {
+				if (chunk.isFull()) {
+					chunks.put(chunk);
+					chunk = new Chunk(0, CHUNK_SIZE);
+				}
+				long id = data.readLong();
+				int level = data.readUnsignedByte();
+				if (level == 0 || (level & ~ALL_LEVELS) != 0) {
+					throw new IllegalArgumentException("Invalid levels " + level + " granted to " + username);
+				}
+				chunk.add(username, id, level);
+				grants++;
+			}
+		}
+		chunks.put(chunk);
+		return grants;
+	}
+
+	private static void index(Index index, BlockingQueue<Chunk> chunks, AtomicReference<RuntimeException> failure) {
+		try {
+			for (Chunk chunk = chunks.take(); chunk != END; chunk = chunks.take()) {
+				if (failure.get() != null) {
+					// Keep draining, so the reading thread never blocks on a full queue
+					continue;
+				}
+				try {
+					chunk.parse();
+					index.add(chunk);
+				}
+				catch (RuntimeException e) {
+					failure.compareAndSet(null, e);
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Grants read from the file, as unparsed CSV lines or as grants read from the binary format.
+	 */
+	private static final class Chunk {
+
+		private final long firstLine;
+		private final String[] lines;
+		private final String[] usernames;
+		private final long[] ids;
+		private final int[] levels;
+		private int size;
+
+		Chunk(long firstLine, int capacity) {
+			this.firstLine = firstLine;
+			this.lines = firstLine > 0 ? new String[capacity] : null;
+			this.usernames = new String[capacity];
+			this.ids = new long[capacity];
+			this.levels = new int[capacity];
+		}
+
+		boolean isFull() {
+			return size == usernames.length;
+		}
+
+		void add(String username, long id, int level) {
+			usernames[size] = username;
+			ids[size] = id;
+			levels[size] = level;
+			size++;
+		}
+
+		void parse() {
+			if (lines == null) {
+				return;
+			}
+			for (int i = 0; i < size; i++) {
+				String line = lines[i];
+				if (line.isBlank()) {
+					continue;
+				}
+				long lineNumber = firstLine + i;
+				int first = line.indexOf(',');
+				int second = line.indexOf(',', first + 1);
+				int level = second < 0 ? 0 : PermissionLevel.maskOf(line.substring(second + 1).trim());
+				if (first <= 0 || level == 0) {
+					throw new IllegalArgumentException("Invalid grant on line " + lineNumber + ": " + line);
+				}
+				try {
+					ids[i] = Long.parseLong(line, first + 1, second, 10);
+				}
+				catch (NumberFormatException e) {
+					throw new IllegalArgumentException("Invalid grant on line " + lineNumber + ": " + line, e);
+				}
+				usernames[i] = line.substring(0, first);
+				levels[i] = level;
+			}
+		}
+
+	}
+
+	/**
+	 * Permissions indexed into the same shards as a {@link PermissionSnapshot}, so they can be published as is. Each
+	 * shard is guarded by its own lock, taken once per shard per chunk.
+	 */
+	private static final class Index {
+
+		private final Map<String, LongIntHashMap>[] shards = PermissionSnapshot.newShards();
+		private final PermissionImplications implications;
+
+		Index(PermissionImplications implications) {
+			this.implications = implications;
+		}
+
+		void add(Chunk chunk) {
+			// Sort the grants of the chunk by shard, to lock each shard only once
+			int[] shardOf = new int[chunk.size];
+			int[] offsets = new int[shards.length + 1];
+			int grants = 0;
+			for (int i = 0; i < chunk.size; i++) {
+				if (chunk.usernames[i] != null) {
+					shardOf[i] = PermissionSnapshot.shard(chunk.usernames[i]);
+					offsets[shardOf[i] + 1]++;
+					grants++;
+				}
+			}
+			for (int shard = 0; shard < shards.length; shard++) {
+				offsets[shard + 1] += offsets[shard];
+			}
+			int[] sorted = new int[grants];
+			int[] next = offsets.clone();
+			for (int i = 0; i < chunk.size; i++) {
+				if (chunk.usernames[i] != null) {
+					sorted[next[shardOf[i]]++] = i;
+				}
+			}
+
+			for (int shard = 0; shard < shards.length; shard++) {
+				if (offsets[shard] == offsets[shard + 1]) {
+					continue;
+				}
+				Map<String, LongIntHashMap> users = shards[shard];
+				synchronized (users) {
+					for (int s = offsets[shard]; s < offsets[shard + 1]; s++) {
+						int i = sorted[s];
+						LongIntHashMap spreadsheets = users.computeIfAbsent(chunk.usernames[i],
+								username -> new LongIntHashMap());
+						int granted = BitmaskSpreadsheetPermissionStore.granted(spreadsheets.get(chunk.ids[i]));
+						spreadsheets.put(chunk.ids[i],
+								BitmaskSpreadsheetPermissionStore.entry(granted | chunk.levels[i], implications));
+					}
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Writes grants in the binary format read by the {@link SpreadsheetPermissionLoader}. Consecutive grants for the
+	 * same user are stored as one block, so write grants grouped by user for the most compact file.
+	 */
+	public static final class BinaryWriter implements Closeable {
+
+		private final DataOutputStream out;
+		private String username;
+		private long[] ids = new long[16];
+		private int[] levels = new int[16];
+		private int size;
+
+		public BinaryWriter(Path file) throws IOException {
+			this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+			out.writeInt(MAGIC);
+		}
+
+		public void write(String username, long spreadsheetId, PermissionLevel level) throws IOException {
+			if (!username.equals(this.username)) {
+				flush();
+				this.username = username;
+			}
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+				levels = Arrays.copyOf(levels, size * 2);
+			}
+			ids[size] = spreadsheetId;
+			levels[size] = level.mask();
+			size++;
+		}
+
+		private void flush() throws IOException {
+			if (size == 0) {
+				return;
+			}
+			out.writeUTF(username);
+			out.writeInt(size);
+			for (int i = 0; i < size; i++) {
+				out.writeLong(ids[i]);
+				out.writeByte(levels[i]);
+			}
+			size = 0;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				flush();
+			}
+			finally {
+				out.close();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.jdriven.permission;
+
+import java.io.Serializable;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+import com.jdriven.model.Spreadsheet;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+@Component
+@RequiredArgsConstructor
+public class SpreadsheetPermissionResolver implements TargetPermissionResolver<Spreadsheet> {
+
+	private final SpreadsheetPermissionStore store;
+
+	@Override
+	public Class<Spreadsheet> targetType() {
+		return Spreadsheet.class;
+	}
+
+	@Override
+	public boolean hasPermission(Authentication authentication, Spreadsheet spreadsheet, Object permission) {
+		return store.hasPermission(authentication.getName(), authentication.getAuthorities(), spreadsheet.getId(),
+				permission);
+	}
+
+	@Override
+	public boolean hasPermissionById(Authentication authentication, Serializable targetId, Object permission) {
+		return store.hasPermission(authentication.getName(), authentication.getAuthorities(), targetId, permission);
+	}
+
+	@Override
+	public Predicate<Spreadsheet> permitted(Authentication authentication, Object permission) {
+		LongPredicate permitted = permittedSpreadsheets(authentication, permission);
+		return spreadsheet -> spreadsheet.getId() != null && permitted.test(spreadsheet.getId());
+	}
+
+	@Override
+	public Predicate<Serializable> permittedIds(Authentication authentication, Object permission) {
+		LongPredicate permitted = permittedSpreadsheets(authentication, permission);
+		return targetId -> targetId instanceof Long id && permitted.test(id);
+	}
+
+	private LongPredicate permittedSpreadsheets(Authentication authentication, Object permission) {
+		return store.permittedSpreadsheets(authentication.getName(), authentication.getAuthorities(), permission);
+	}
+
+}
@@ -1,16 +1,68 @@
 package com.jdriven.permission;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
 
-import org.springframework.stereotype.Repository;
+import org.springframework.security.core.GrantedAuthority;
 
-import lombok.Value;
+public interface SpreadsheetPermissionStore {
 
-@Repository
-@Value
-public class SpreadsheetPermissionStore {
+	default void grant(SpreadsheetPermission permission) {
+		update(changes -> changes.grant(permission));
+	}
 
-	private Set<SpreadsheetPermission> permissions = new HashSet<>();
+	default void revoke(SpreadsheetPermission permission) {
+		update(changes -> changes.revoke(permission));
+	}
+
+	default void grant(SpreadsheetGroupPermission permission) {
+		update(changes -> changes.grant(permission));
+	}
+
+	default void revoke(SpreadsheetGroupPermission permission) {
+		update(changes -> changes.revoke(permission));
+	}
+
+	/**
+	 * Apply a batch of grants and revokes, which become visible to readers all at once.
+	 */
+	void update(Consumer<Changes> changes);
+
+	default boolean hasPermission(String username, Serializable spreadsheetId, Object level) {
+		return hasPermission(username, List.of(), spreadsheetId, level);
+	}
+
+	/**
+	 * Check the permissions granted to the user directly, together with those granted to any of the authorities.
+	 */
+	boolean hasPermission(String username, Collection<? extends GrantedAuthority> authorities,
+			Serializable spreadsheetId, Object level);
+
+	default LongPredicate permittedSpreadsheets(String username, Object level) {
+		return permittedSpreadsheets(username, List.of(), level);
+	}
+
+	/**
+	 * Resolve the permissions of a user once, to check many spreadsheets without repeating the lookup per spreadsheet.
+	 *
+	 * @return a predicate on spreadsheet ids, answering against the permissions at the time of this call
+	 */
+	LongPredicate permittedSpreadsheets(String username, Collection<? extends GrantedAuthority> authorities,
+			Object level);
+
+	interface Changes {
+
+		Changes grant(SpreadsheetPermission permission);
+
+		Changes revoke(SpreadsheetPermission permission);
+
+		Changes grant(SpreadsheetGroupPermission permission);
+
+		Changes revoke(SpreadsheetGroupPermission permission);
+
+	}
 
 }
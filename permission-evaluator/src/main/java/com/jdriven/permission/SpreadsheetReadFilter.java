@@ -0,0 +1,10 @@
+package com.jdriven.permission;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+@Retention(RetentionPolicy.RUNTIME)
+@SpreadsheetPermissionFilter("READ")
+public @interface SpreadsheetReadFilter {
+	// Meta-annotation
+}
@@ -0,0 +1,38 @@
+package com.jdriven.permission;
+
+import java.io.Serializable;
+import java.util.function.Predicate;
+
+import org.springframework.security.core.Authentication;
+
+/**
+ * Resolves permissions for a single type of domain object, on behalf of the {@link CustomPermissionEvaluator}. Each
+ * resolver owns the index, and any cache, for its own type.
+ */
+public interface TargetPermissionResolver<T> {
+
+	/**
+	 * @return the type of domain object resolved, which also handles instances of subtypes, and target ids passed
+	 * with the fully qualified name of this type
+	 */
+	Class<T> targetType();
+
+	boolean hasPermission(Authentication authentication, T target, Object permission);
+
+	boolean hasPermissionById(Authentication authentication, Serializable targetId, Object permission);
+
+	/**
+	 * Resolve the permissions of the principal once, to check many targets without repeating the lookup per target.
+	 */
+	default Predicate<T> permitted(Authentication authentication, Object permission) {
+		return target -> hasPermission(authentication, target, permission);
+	}
+
+	/**
+	 * Resolve the permissions of the principal once, to check many target ids without repeating the lookup per id.
+	 */
+	default Predicate<Serializable> permittedIds(Authentication authentication, Object permission) {
+		return targetId -> hasPermissionById(authentication, targetId, permission);
+	}
+
+}
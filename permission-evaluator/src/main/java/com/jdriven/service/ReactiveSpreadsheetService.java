@@ -0,0 +1,32 @@
+package com.jdriven.service;
+
+import com.jdriven.model.Spreadsheet;
+import com.jdriven.permission.HasSpreadsheetPermission;
+import com.jdriven.permission.PermissionLevel;
+
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@Slf4j
+public class ReactiveSpreadsheetService {
+
+	@HasSpreadsheetPermission(PermissionLevel.READ)
+	public Mono<Spreadsheet> read(Spreadsheet spreadsheet) {
+		return Mono.just(spreadsheet).doOnNext(read -> log.info("Reading {}", read));
+	}
+
+	@HasSpreadsheetPermission(PermissionLevel.READ)
+	public Flux<String> readLinesById(Long id) {
+		return Flux.just("line 1", "line 2").doOnSubscribe(subscription -> log.info("Reading Spreadsheet id {}", id));
+	}
+
+	@HasSpreadsheetPermission(PermissionLevel.WRITE)
+	public Mono<Void> write(Spreadsheet spreadsheet) {
+		return Mono.fromRunnable(() -> log.info("Writing {}", spreadsheet));
+	}
+
+}
@@ -1,7 +1,14 @@
 package com.jdriven.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 import com.jdriven.model.Spreadsheet;
+import com.jdriven.permission.HasSpreadsheetPermission;
+import com.jdriven.permission.PermissionLevel;
 import com.jdriven.permission.SpreadsheetPrintAccess;
+import com.jdriven.permission.SpreadsheetReadFilter;
 
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
@@ -32,9 +39,20 @@ public class SpreadsheetService {
 		log.info("Writing Spreadsheet id {} ", id);
 	}
 
+	@SpreadsheetReadFilter
+	public List<Spreadsheet> readAll(Collection<Spreadsheet> spreadsheets) {
+		log.info("Reading {} spreadsheets", spreadsheets.size());
+		return new ArrayList<>(spreadsheets);
+	}
+
 	@SpreadsheetPrintAccess
 	public void print(Spreadsheet spreadsheet) {
 		log.info("Printing {}", spreadsheet);
 	}
 
+	@HasSpreadsheetPermission(PermissionLevel.PRINT)
+	public void printById(Long id) {
+		log.info("Printing Spreadsheet id {}", id);
+	}
+
 }
@@ -0,0 +1,216 @@
+package com.jdriven.permission;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.jdriven.model.Spreadsheet;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BitmaskSpreadsheetPermissionStoreTest {
+
+	private final BitmaskSpreadsheetPermissionStore store = new BitmaskSpreadsheetPermissionStore();
+
+	private final User alice = new User("alice", "", Collections.emptyList());
+
+	@Test
+	void testBatchIsPublishedAsOneVersion() {
+		long version = store.version();
+		store.update(changes -> changes
+				.grant(new SpreadsheetPermission(alice, new Spreadsheet(1L, "one"), "READ"))
+				.grant(new SpreadsheetPermission(alice, new Spreadsheet(2L, "two"), "WRITE"))
+				.revoke(new SpreadsheetPermission(alice, new Spreadsheet(1L, "one"), "READ")));
+		assertThat(store.version()).isEqualTo(version + 1);
+		assertThat(store.hasPermission("alice", 1L, "READ")).isFalse();
+		assertThat(store.hasPermission("alice", 2L, "WRITE")).isTrue();
+		assertThat(store.hasPermission("alice", 2L, "READ")).isFalse();
+	}
+
+	@Test
+	void testImpliedLevelsFollowGrantsAndRevokes() {
+		BitmaskSpreadsheetPermissionStore store = new BitmaskSpreadsheetPermissionStore(
+				PermissionImplications.of("OWNER > WRITE > READ", "OWNER > PRINT"));
+		Spreadsheet spreadsheet = new Spreadsheet(1L, "one");
+
+		store.grant(new SpreadsheetPermission(alice, spreadsheet, "WRITE"));
+		assertThat(store.hasPermission("alice", 1L, "READ")).isTrue();
+		assertThat(store.hasPermission("alice", 1L, "PRINT")).isFalse();
+
+		store.grant(new SpreadsheetPermission(alice, spreadsheet, "OWNER"));
+		assertThat(store.hasPermission("alice", 1L, "PRINT")).isTrue();
+
+		// Revoking an implied level leaves it implied, while revoking the implying level takes away what it implied
+		store.revoke(new SpreadsheetPermission(alice, spreadsheet, "READ"));
+		assertThat(store.hasPermission("alice", 1L, "READ")).isTrue();
+		store.revoke(new SpreadsheetPermission(alice, spreadsheet, "OWNER"));
+		assertThat(store.hasPermission("alice", 1L, "PRINT")).isFalse();
+		assertThat(store.hasPermission("alice", 1L, "READ")).isTrue();
+		store.revoke(new SpreadsheetPermission(alice, spreadsheet, "WRITE"));
+		assertThat(store.hasPermission("alice", 1L, "READ")).isFalse();
+		assertThat(store.snapshot().permissionsOf("alice")).isNull();
+	}
+
+	@Test
+	void testImplicationsFollowRulesTransitively() {
+		PermissionImplications implications = PermissionImplications.of("OWNER > WRITE", "WRITE > READ");
+		assertThat(implications.effective(PermissionLevel.OWNER.mask())).isEqualTo(
+				PermissionLevel.OWNER.mask() | PermissionLevel.WRITE.mask() | PermissionLevel.READ.mask());
+		assertThat(implications.effective(PermissionLevel.PRINT.mask())).isEqualTo(PermissionLevel.PRINT.mask());
+		assertThatThrownBy(() -> PermissionImplications.of("WRITE > DELETE"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void testGroupPermissionsMergedWithDirectPermissions() {
+		List<GrantedAuthority> finance = AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_FINANCE");
+		store.update(changes -> changes
+				.grant(new SpreadsheetPermission(alice, new Spreadsheet(1L, "one"), "READ"))
+				.grant(new SpreadsheetGroupPermission("ROLE_FINANCE", new Spreadsheet(1L, "one"), "PRINT"))
+				.grant(new SpreadsheetGroupPermission("ROLE_FINANCE", new Spreadsheet(2L, "two"), "READ")));
+
+		assertThat(store.hasPermission("alice", finance, 1L, "READ")).isTrue();
+		assertThat(store.hasPermission("alice", finance, 1L, "PRINT")).isTrue();
+		assertThat(store.hasPermission("alice", finance, 2L, "READ")).isTrue();
+		assertThat(store.hasPermission("bob", finance, 2L, "READ")).isTrue();
+		assertThat(store.permittedSpreadsheets("bob", finance, "READ").test(2L)).isTrue();
+
+		// Without the authority only the direct permissions remain
+		assertThat(store.hasPermission("alice", AuthorityUtils.createAuthorityList("ROLE_USER"), 1L, "PRINT"))
+				.isFalse();
+		assertThat(store.hasPermission("alice", 2L, "READ")).isFalse();
+	}
+
+	@Test
+	void testGroupPermissionsFollowChanges() {
+		List<GrantedAuthority> finance = AuthorityUtils.createAuthorityList("ROLE_FINANCE");
+		Spreadsheet spreadsheet = new Spreadsheet(1L, "one");
+		store.grant(new SpreadsheetGroupPermission("ROLE_FINANCE", spreadsheet, "READ"));
+		assertThat(store.hasPermission("alice", finance, 1L, "READ")).isTrue();
+		assertThat(store.hasPermission("alice", finance, 1L, "WRITE")).isFalse();
+
+		store.grant(new SpreadsheetPermission(alice, spreadsheet, "WRITE"));
+		assertThat(store.hasPermission("alice", finance, 1L, "WRITE")).isTrue();
+		// Leaving the group takes effect on the next check
+		assertThat(store.hasPermission("alice", List.of(), 1L, "READ")).isFalse();
+
+		store.revoke(new SpreadsheetGroupPermission("ROLE_FINANCE", spreadsheet, "READ"));
+		assertThat(store.hasPermission("alice", finance, 1L, "READ")).isFalse();
+		assertThat(store.hasPermission("alice", finance, 1L, "WRITE")).isTrue();
+		assertThat(store.snapshot().groupPermissionsOf("ROLE_FINANCE")).isNull();
+	}
+
+	@Test
+	void testGroupViewsSharedAcrossUsersAndBounded() {
+		Spreadsheet spreadsheet = new Spreadsheet(1L, "one");
+		store.grant(new SpreadsheetGroupPermission("ROLE_FINANCE", spreadsheet, "READ"));
+		for (int user = 0; user < 100; user++) {
+			List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList("ROLE_FINANCE", "ROLE_USER");
+			assertThat(store.hasPermission("user" + user, authorities, 1L, "READ")).isTrue();
+		}
+		assertThat(store.groupViewCount()).isOne();
+
+		// The merged view is recomputed once the authority permissions change
+		store.grant(new SpreadsheetGroupPermission("ROLE_USER", spreadsheet, "WRITE"));
+		assertThat(store.hasPermission("user0", AuthorityUtils.createAuthorityList("ROLE_FINANCE", "ROLE_USER"), 1L,
+				"WRITE")).isTrue();
+
+		for (int group = 0; group < 2 * BitmaskSpreadsheetPermissionStore.MAX_GROUP_VIEWS; group++) {
+			List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList("ROLE_FINANCE", "GROUP_" + group);
+			assertThat(store.hasPermission("alice", authorities, 1L, "READ")).isTrue();
+			assertThat(store.hasPermission("alice", authorities, 1L, "WRITE")).isFalse();
+		}
+		assertThat(store.groupViewCount()).isLessThanOrEqualTo(BitmaskSpreadsheetPermissionStore.MAX_GROUP_VIEWS);
+	}
+
+	@Test
+	void testBloomFilterFollowsChanges() {
+		store.grant(new SpreadsheetGroupPermission("ROLE_FINANCE", new Spreadsheet(0L, "zero"), "READ"));
+		store.useBloomFilter(0.01);
+		List<GrantedAuthority> finance = AuthorityUtils.createAuthorityList("ROLE_FINANCE");
+
+		// Grant more pairs than the filter was sized for, so it is rebuilt along the way
+		store.update(changes -> {
+			for (long id = 1; id <= 5_000; id++) {
+				changes.grant(new SpreadsheetPermission(alice, new Spreadsheet(id, "spreadsheet"), "READ"));
+			}
+		});
+		store.revoke(new SpreadsheetPermission(alice, new Spreadsheet(1L, "one"), "READ"));
+
+		assertThat(store.hasPermission("alice", finance, 0L, "READ")).isTrue();
+		assertThat(store.hasPermission("alice", 0L, "READ")).isFalse();
+		assertThat(store.hasPermission("alice", 1L, "READ")).isFalse();
+		for (long id = 2; id <= 5_000; id++) {
+			assertThat(store.hasPermission("alice", id, "READ")).isTrue();
+		}
+		for (long id = 5_001; id <= 15_000; id++) {
+			assertThat(store.hasPermission("alice", finance, id, "READ")).isFalse();
+		}
+		assertThat(store.bloomFilterNegatives()).isGreaterThan(9_000);
+		assertThat(store.bloomFilterFalsePositives()).isLessThan(500);
+		assertThat(store.bloomFilterExpectedFalsePositiveRate()).isLessThan(0.05);
+		assertThat(store.bloomFilterMemoryBytes()).isPositive();
+	}
+
+	@Test
+	void testFailedBatchPublishesNothing() {
+		long version = store.version();
+		assertThatThrownBy(() -> store.update(changes -> changes
+				.grant(new SpreadsheetPermission(alice, new Spreadsheet(1L, "one"), "READ"))
+				.grant(new SpreadsheetPermission(alice, new Spreadsheet(2L, "two"), "DELETE"))))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThat(store.version()).isEqualTo(version);
+		assertThat(store.hasPermission("alice", 1L, "READ")).isFalse();
+	}
+
+	@Test
+	void testReadersNeverObservePartialBatches() throws Exception {
+		User bob = new User("bob", "", Collections.emptyList());
+		AtomicBoolean running = new AtomicBoolean(true);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> readers = new ArrayList<>();
+			for (int i = 0; i < 3; i++) {
+				readers.add(executor.submit(() -> {
+					while (running.get()) {
+						// Alice and Bob are always granted and revoked together
+						PermissionSnapshot snapshot = store.snapshot();
+						assertThat(snapshot.permissionsOf("alice") != null)
+								.isEqualTo(snapshot.permissionsOf("bob") != null);
+					}
+				}));
+			}
+			Future<?> writer = executor.submit(() -> {
+				Spreadsheet spreadsheet = new Spreadsheet(1L, "one");
+				for (int i = 0; i < 10_000; i++) {
+					store.update(changes -> changes
+							.grant(new SpreadsheetPermission(alice, spreadsheet, "READ"))
+							.grant(new SpreadsheetPermission(bob, spreadsheet, "READ")));
+					store.update(changes -> changes
+							.revoke(new SpreadsheetPermission(alice, spreadsheet, "READ"))
+							.revoke(new SpreadsheetPermission(bob, spreadsheet, "READ")));
+				}
+			});
+			writer.get(1, TimeUnit.MINUTES);
+			running.set(false);
+			for (Future<?> reader : readers) {
+				reader.get(1, TimeUnit.MINUTES);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
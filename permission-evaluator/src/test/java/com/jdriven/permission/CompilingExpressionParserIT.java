@@ -0,0 +1,81 @@
+package com.jdriven.permission;
+
+import java.util.Collections;
+
+import com.jdriven.model.Spreadsheet;
+import com.jdriven.service.SpreadsheetService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "spreadsheet.permission.compile-expressions=true")
+class CompilingExpressionParserIT {
+
+	@Autowired
+	private SpreadsheetPermissionStore store;
+
+	@Autowired
+	private SpreadsheetService service;
+
+	@Autowired
+	private CompilingExpressionParser parser;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private Spreadsheet spreadsheet;
+
+	private long compiled;
+
+	private long fallbacks;
+
+	@BeforeEach
+	void setup() {
+		User alice = new User("alice", "", Collections.emptyList());
+		spreadsheet = new Spreadsheet(123L, "alice's spreadsheet");
+		store.grant(new SpreadsheetPermission(alice, spreadsheet, "READ"));
+		compiled = parser.getCompiled();
+		fallbacks = parser.getFallbacks();
+	}
+
+	@Test
+	@WithMockUser("alice")
+	void testCompiledExpressionsKeepGrantingAndDenying() {
+		for (int i = 0; i < 3; i++) {
+			service.read(spreadsheet);
+			service.readById(spreadsheet.getId());
+			assertThrows(AccessDeniedException.class, () -> service.write(spreadsheet));
+			assertThrows(AccessDeniedException.class, () -> service.writeById(spreadsheet.getId()));
+		}
+		assertThat(parser.getCompiled()).isEqualTo(compiled + 4);
+		assertThat(parser.getFallbacks()).isEqualTo(fallbacks);
+		assertThat(meterRegistry.get("spreadsheet.permission.expression.compilation")
+				.tag("result", "compiled").functionCounter().count())
+				.isEqualTo(parser.getCompiled());
+	}
+
+	@Test
+	void testExpressionsWhichCanNotBeCompiledFallBackToInterpretation() {
+		Expression expression = parser.parseExpression("{1, 2, 3}.?[#this > 1].size() == 2");
+		for (int i = 0; i < 3; i++) {
+			assertThat(expression.getValue(new StandardEvaluationContext(), Boolean.class)).isTrue();
+		}
+		assertThat(parser.getFallbacks()).isEqualTo(fallbacks + 1);
+		assertThat(meterRegistry.get("spreadsheet.permission.expression.compilation")
+				.tag("result", "interpreted").functionCounter().count())
+				.isEqualTo(parser.getFallbacks());
+	}
+
+}
@@ -1,6 +1,7 @@
 package com.jdriven.permission;
 
 import java.util.Collections;
+import java.util.List;
 
 import com.jdriven.model.Spreadsheet;
 import com.jdriven.service.SpreadsheetService;
@@ -10,12 +11,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.test.context.support.WithMockUser;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
-@SpringBootTest
+@SpringBootTest(properties = "spreadsheet.permission.implications=OWNER > WRITE > READ,OWNER > PRINT")
 class CustomPermissionEvaluatorIT {
 
 	@Autowired
@@ -24,17 +27,25 @@ class CustomPermissionEvaluatorIT {
 	@Autowired
 	private SpreadsheetService service;
 
+	@Autowired
+	private CustomPermissionEvaluator evaluator;
+
 	private Spreadsheet spreadsheet;
 
 	@BeforeEach
 	void setup() {
 		User alice = new User("alice", "", Collections.emptyList());
 		User bob = new User("bob", "", Collections.emptyList());
+		User carol = new User("carol", "", Collections.emptyList());
+		User dave = new User("dave", "", Collections.emptyList());
 		spreadsheet = new Spreadsheet(123L, "alice's spreadsheet");
-		store.getPermissions().add(new SpreadsheetPermission(alice, spreadsheet, "READ"));
-		store.getPermissions().add(new SpreadsheetPermission(alice, spreadsheet, "WRITE"));
-		store.getPermissions().add(new SpreadsheetPermission(alice, spreadsheet, "PRINT"));
-		store.getPermissions().add(new SpreadsheetPermission(bob, spreadsheet, "READ"));
+		store.grant(new SpreadsheetPermission(alice, spreadsheet, "READ"));
+		store.grant(new SpreadsheetPermission(alice, spreadsheet, "WRITE"));
+		store.grant(new SpreadsheetPermission(alice, spreadsheet, "PRINT"));
+		store.grant(new SpreadsheetPermission(bob, spreadsheet, "READ"));
+		store.grant(new SpreadsheetPermission(carol, spreadsheet, "OWNER"));
+		store.grant(new SpreadsheetPermission(dave, spreadsheet, "WRITE"));
+		store.grant(new SpreadsheetGroupPermission("ROLE_FINANCE", spreadsheet, "PRINT"));
 	}
 
 	@Test
@@ -67,6 +78,12 @@ class CustomPermissionEvaluatorIT {
 		service.print(spreadsheet);
 	}
 
+	@Test
+	@WithMockUser("alice")
+	void testAliceAllowedToPrintSpreadsheetById() {
+		service.printById(spreadsheet.getId());
+	}
+
 	@Test
 	@WithMockUser("alice")
 	void testAliceNotAllowedToReadAnotherSpreadsheet() {
@@ -80,6 +97,21 @@ class CustomPermissionEvaluatorIT {
 		assertThrows(AccessDeniedException.class, () -> service.readById(456L));
 	}
 
+	@Test
+	@WithMockUser("alice")
+	void testAliceReadAllFilteredToPermittedSpreadsheets() {
+		Spreadsheet anotherSpreadsheet = new Spreadsheet(456L, "another spreadsheet");
+		assertThat(service.readAll(List.of(anotherSpreadsheet, spreadsheet))).containsExactly(spreadsheet);
+	}
+
+	@Test
+	@WithMockUser("alice")
+	void testAliceFilterPermittedSpreadsheetIds() {
+		assertThat(evaluator.filterPermitted(SecurityContextHolder.getContext().getAuthentication(),
+				List.of(456L, spreadsheet.getId()), Spreadsheet.class.getName(), "WRITE"))
+				.containsExactly(spreadsheet.getId());
+	}
+
 	@Test
 	@WithMockUser("bob")
 	void testBobAllowedToReadSpreadsheet() {
@@ -104,18 +136,62 @@ class CustomPermissionEvaluatorIT {
 		assertThrows(AccessDeniedException.class, () -> service.print(spreadsheet));
 	}
 
+	@Test
+	@WithMockUser("bob")
+	void testBobNotAllowedToPrintSpreadsheetById() {
+		assertThrows(AccessDeniedException.class, () -> service.printById(spreadsheet.getId()));
+	}
+
 	@Test
 	@WithMockUser("bob")
 	void testBobNotAllowedToWriteSpreadsheetById() {
 		assertThrows(AccessDeniedException.class, () -> service.writeById(spreadsheet.getId()));
 	}
 
+	@Test
+	@WithMockUser("bob")
+	void testBobNotAllowedToReadSpreadsheetAfterRevoke() {
+		store.revoke(new SpreadsheetPermission(new User("bob", "", Collections.emptyList()), spreadsheet, "READ"));
+		assertThrows(AccessDeniedException.class, () -> service.read(spreadsheet));
+		assertThrows(AccessDeniedException.class, () -> service.readById(spreadsheet.getId()));
+	}
+
+	@Test
+	@WithMockUser("carol")
+	void testCarolAsOwnerAllowedEveryLevel() {
+		service.read(spreadsheet);
+		service.writeById(spreadsheet.getId());
+		service.print(spreadsheet);
+	}
+
+	@Test
+	@WithMockUser("dave")
+	void testDaveAllowedToReadSpreadsheetThroughWrite() {
+		service.read(spreadsheet);
+		service.readById(spreadsheet.getId());
+		assertThrows(AccessDeniedException.class, () -> service.print(spreadsheet));
+	}
+
+	@Test
+	@WithMockUser(username = "frank", roles = "FINANCE")
+	void testFrankAllowedToPrintSpreadsheetThroughRole() {
+		service.print(spreadsheet);
+		service.printById(spreadsheet.getId());
+		assertThrows(AccessDeniedException.class, () -> service.read(spreadsheet));
+	}
+
 	@Test
 	@WithMockUser("eve")
 	void testEveNotAllowedToReadSpreadsheet() {
 		assertThrows(AccessDeniedException.class, () -> service.read(spreadsheet));
 	}
 
+	@Test
+	@WithMockUser("eve")
+	void testEveReadAllFilteredToNoSpreadsheets() {
+		assertThat(service.readAll(List.of(spreadsheet))).isEmpty();
+	}
+
 	@Test
 	@WithMockUser("eve")
 	void testEveNotAllowedToReadSpreadsheetById() {
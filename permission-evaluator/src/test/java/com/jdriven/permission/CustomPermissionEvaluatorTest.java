@@ -0,0 +1,94 @@
+package com.jdriven.permission;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.List;
+
+import com.jdriven.model.Spreadsheet;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomPermissionEvaluatorTest {
+
+	private final BitmaskSpreadsheetPermissionStore store = new BitmaskSpreadsheetPermissionStore();
+
+	private final DenialLog denials = new DenialLog(Duration.ofMinutes(1), 10);
+
+	private final CustomPermissionEvaluator evaluator = new CustomPermissionEvaluator(
+			List.of(new SpreadsheetPermissionResolver(store), new NumberPermissionResolver()), denials);
+
+	private final User alice = new User("alice", "", List.of());
+
+	private final Authentication authentication = new TestingAuthenticationToken(alice, null);
+
+	@AfterEach
+	void tearDown() throws Exception {
+		denials.destroy();
+	}
+
+	@Test
+	void testDispatchByTypeName() {
+		store.grant(new SpreadsheetPermission(alice, new Spreadsheet(1L, "one"), "READ"));
+
+		assertThat(evaluator.hasPermission(authentication, 1L, Spreadsheet.class.getName(), "READ")).isTrue();
+		assertThat(evaluator.hasPermission(authentication, 2L, Spreadsheet.class.getName(), "READ")).isFalse();
+		assertThat(evaluator.hasPermission(authentication, 2, Number.class.getName(), "READ")).isTrue();
+		assertThat(evaluator.hasPermission(authentication, 3, Number.class.getName(), "READ")).isFalse();
+		assertThat(evaluator.hasPermission(authentication, 1L, "com.jdriven.model.Unknown", "READ")).isFalse();
+		assertThat(evaluator.filterPermitted(authentication, List.of(1, 2, 4), Number.class.getName(), "READ"))
+			.containsExactly(2, 4);
+	}
+
+	@Test
+	void testDispatchByClassIncludingSubtypes() {
+		store.grant(new SpreadsheetPermission(alice, new Spreadsheet(1L, "one"), "READ"));
+
+		assertThat(evaluator.hasPermission(authentication, new Spreadsheet(1L, "one"), "READ")).isTrue();
+		assertThat(evaluator.hasPermission(authentication, 2, "READ")).isTrue();
+		assertThat(evaluator.hasPermission(authentication, 2L, "READ")).isTrue();
+		assertThat(evaluator.hasPermission(authentication, "two", "READ")).isFalse();
+		assertThat(evaluator.hasPermission(authentication, null, "READ")).isFalse();
+		assertThat(evaluator.filterPermitted(authentication,
+				List.of(new Spreadsheet(1L, "one"), new Spreadsheet(2L, "two"), 4, 5L, "six"), "READ"))
+			.containsExactly(new Spreadsheet(1L, "one"), 4);
+	}
+
+	@Test
+	void testRejectsMultipleResolversForType() {
+		List<TargetPermissionResolver<?>> resolvers = List.of(new NumberPermissionResolver(),
+				new NumberPermissionResolver());
+		assertThatThrownBy(() -> new CustomPermissionEvaluator(resolvers, denials))
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessage("Multiple resolvers for java.lang.Number");
+	}
+
+	/**
+	 * Permits even numbers, to check dispatch on a supertype without a store.
+	 */
+	private static class NumberPermissionResolver implements TargetPermissionResolver<Number> {
+
+		@Override
+		public Class<Number> targetType() {
+			return Number.class;
+		}
+
+		@Override
+		public boolean hasPermission(Authentication authentication, Number target, Object permission) {
+			return target.longValue() % 2 == 0;
+		}
+
+		@Override
+		public boolean hasPermissionById(Authentication authentication, Serializable targetId, Object permission) {
+			return targetId instanceof Number number && hasPermission(authentication, number, permission);
+		}
+
+	}
+
+}
@@ -0,0 +1,113 @@
+package com.jdriven.permission;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DenialLogTest {
+
+	private final Logger logger = (Logger) LoggerFactory.getLogger(DenialLog.class);
+
+	private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+	@BeforeEach
+	void setup() {
+		appender.start();
+		logger.addAppender(appender);
+	}
+
+	@AfterEach
+	void tearDown() {
+		logger.detachAppender(appender);
+	}
+
+	@Test
+	void testDenialsAreSummarizedPerPrincipalPermissionAndType() {
+		DenialLog denials = new DenialLog(Duration.ofSeconds(1), 10);
+		for (int i = 0; i < 1_000; i++) {
+			denials.record("eve", "READ", "Spreadsheet");
+		}
+		denials.record("eve", "WRITE", "Spreadsheet");
+		assertThat(appender.list).isEmpty();
+
+		denials.flush();
+		assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage).containsExactly(
+				"Denied eve READ access to Spreadsheet 1000 times",
+				"Denied eve WRITE access to Spreadsheet 1 times");
+
+		denials.flush();
+		assertThat(appender.list).hasSize(2);
+	}
+
+	@Test
+	void testLinesPerFlushAreCapped() {
+		DenialLog denials = new DenialLog(Duration.ofSeconds(2), 3);
+		for (int i = 0; i < 100; i++) {
+			denials.record("user" + i, "READ", "Spreadsheet", i + 1);
+		}
+		denials.flush();
+		assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage).containsExactly(
+				"Denied user99 READ access to Spreadsheet 100 times",
+				"Denied user98 READ access to Spreadsheet 99 times",
+				"Denied user97 READ access to Spreadsheet 98 times",
+				"Denied user96 READ access to Spreadsheet 97 times",
+				"Denied user95 READ access to Spreadsheet 96 times",
+				"Denied user94 READ access to Spreadsheet 95 times",
+				"Denied 4465 more requests not listed");
+	}
+
+	@Test
+	void testConcurrentRecordsAndFlushesLoseNoDenials() throws Exception {
+		DenialLog denials = new DenialLog(Duration.ofSeconds(1), 1_000);
+		int threads = 4;
+		int denialsPerThread = 20_000;
+		AtomicBoolean recording = new AtomicBoolean(true);
+		Thread flusher = new Thread(() -> {
+			while (recording.get()) {
+				denials.flush();
+			}
+		});
+		flusher.start();
+		List<Thread> recorders = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			Thread recorder = new Thread(() -> {
+				for (int i = 0; i < denialsPerThread; i++) {
+					// Few keys recorded in turn, so that counters go idle and are removed while being recorded to
+					denials.record("user" + i % 8, "READ", "Spreadsheet");
+				}
+			});
+			recorders.add(recorder);
+			recorder.start();
+		}
+		for (Thread recorder : recorders) {
+			recorder.join();
+		}
+		recording.set(false);
+		flusher.join();
+		denials.flush();
+
+		Pattern times = Pattern.compile("Denied user\\d READ access to Spreadsheet (\\d+) times");
+		long logged = 0;
+		for (ILoggingEvent event : appender.list) {
+			Matcher matcher = times.matcher(event.getFormattedMessage());
+			assertThat(matcher.matches()).isTrue();
+			logged += Long.parseLong(matcher.group(1));
+		}
+		assertThat(logged).isEqualTo((long) threads * denialsPerThread);
+	}
+
+}
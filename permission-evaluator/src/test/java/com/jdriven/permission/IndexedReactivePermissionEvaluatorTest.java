@@ -0,0 +1,70 @@
+package com.jdriven.permission;
+
+import java.time.Duration;
+import java.util.List;
+
+import com.jdriven.model.Spreadsheet;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndexedReactivePermissionEvaluatorTest {
+
+	private final BitmaskSpreadsheetPermissionStore store = new BitmaskSpreadsheetPermissionStore();
+
+	private final DenialLog denials = new DenialLog(Duration.ofMinutes(1), 10);
+
+	private final CustomPermissionEvaluator evaluator = new CustomPermissionEvaluator(
+			List.of(new SpreadsheetPermissionResolver(store)), denials);
+
+	private final User alice = new User("alice", "", List.of());
+
+	private final Authentication authentication = new TestingAuthenticationToken(alice, null);
+
+	@AfterEach
+	void tearDown() throws Exception {
+		denials.destroy();
+	}
+
+	@Test
+	void testCheckedOnSubscribingThread() {
+		store.grant(new SpreadsheetPermission(alice, new Spreadsheet(1L, "one"), "READ"));
+		IndexedReactivePermissionEvaluator reactive = new IndexedReactivePermissionEvaluator(evaluator);
+
+		assertThat(checkingThread(reactive.hasPermission(authentication, 1L, Spreadsheet.class.getName(), "READ")))
+				.isEqualTo(Thread.currentThread().getName());
+		assertThat(reactive.hasPermission(authentication, new Spreadsheet(2L, "two"), "READ").block()).isFalse();
+	}
+
+	@Test
+	void testCheckedOnSchedulerGiven() {
+		store.grant(new SpreadsheetPermission(alice, new Spreadsheet(1L, "one"), "READ"));
+		Scheduler scheduler = Schedulers.newSingle("permission-check");
+		try {
+			IndexedReactivePermissionEvaluator reactive = new IndexedReactivePermissionEvaluator(evaluator, scheduler);
+
+			assertThat(checkingThread(reactive.hasPermission(authentication, new Spreadsheet(1L, "one"), "READ")))
+					.startsWith("permission-check");
+		}
+		finally {
+			scheduler.dispose();
+		}
+	}
+
+	private static String checkingThread(Mono<Boolean> check) {
+		return check.map(permitted -> {
+			assertThat(permitted).isTrue();
+			return Thread.currentThread().getName();
+		}).block();
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.jdriven.permission;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongIntHashMapTest {
+
+	@Test
+	void testGetAbsentKeyReturnsZero() {
+		LongIntHashMap map = new LongIntHashMap();
+		assertThat(map.get(123L)).isZero();
+		map.put(0L, 1);
+		assertThat(map.get(0L)).isEqualTo(1);
+		assertThat(map.get(123L)).isZero();
+	}
+
+	@Test
+	void testPutZeroRemovesKey() {
+		LongIntHashMap map = new LongIntHashMap();
+		map.put(123L, 5);
+		map.put(123L, 0);
+		assertThat(map.get(123L)).isZero();
+		assertThat(map.isEmpty()).isTrue();
+	}
+
+	@Test
+	void testMatchesHashMapUnderRandomOperations() {
+		Random random = new Random(42);
+		LongIntHashMap map = new LongIntHashMap();
+		Map<Long, Integer> expected = new HashMap<>();
+		for (int i = 0; i < 200_000; i++) {
+			// Narrow key range to force collisions, removals and probe sequence shifts
+			long key = random.nextInt(5_000) * 1024L;
+			if (random.nextInt(3) == 0) {
+				map.remove(key);
+				expected.remove(key);
+			}
+			else {
+				int value = 1 + random.nextInt(7);
+				map.put(key, value);
+				expected.put(key, value);
+			}
+		}
+		assertThat(map.size()).isEqualTo(expected.size());
+		for (long key = 0; key < 5_000 * 1024L; key += 1024L) {
+			assertThat(map.get(key)).isEqualTo(expected.getOrDefault(key, 0));
+		}
+	}
+
+}
@@ -0,0 +1,147 @@
+package com.jdriven.permission;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+
+import com.jdriven.model.Spreadsheet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedPermissionsTest {
+
+	private final User alice = new User("alice", "", Collections.emptyList());
+
+	private final Spreadsheet one = new Spreadsheet(1L, "one");
+
+	private final Spreadsheet two = new Spreadsheet(2L, "two");
+
+	@TempDir
+	private Path directory;
+
+	@Test
+	void testPermissionsServedFromSnapshotAfterRestart() throws IOException {
+		BitmaskSpreadsheetPermissionStore store = new BitmaskSpreadsheetPermissionStore();
+		try (Closeable files = store.open(directory)) {
+			store.update(changes -> changes
+					.grant(new SpreadsheetPermission(alice, one, "READ"))
+					.grant(new SpreadsheetPermission(alice, two, "WRITE"))
+					.grant(new SpreadsheetGroupPermission("ROLE_FINANCE", one, "PRINT")));
+		}
+
+		BitmaskSpreadsheetPermissionStore restarted = new BitmaskSpreadsheetPermissionStore();
+		try (Closeable files = restarted.open(directory)) {
+			// Nothing is held on the heap for the user, as all is served from the mapped file
+			assertThat(restarted.snapshot().permissionsOf("alice")).isNull();
+			assertThat(restarted.hasPermission("alice", 1L, "READ")).isTrue();
+			assertThat(restarted.hasPermission("alice", 2L, "WRITE")).isTrue();
+			assertThat(restarted.hasPermission("alice", 2L, "READ")).isFalse();
+			assertThat(restarted.hasPermission("bob", 1L, "READ")).isFalse();
+			assertThat(restarted.hasPermission("bob", AuthorityUtils.createAuthorityList("ROLE_FINANCE"), 1L,
+					"PRINT")).isTrue();
+		}
+	}
+
+	@Test
+	void testImplicationsAppliedAsConfiguredOnRestart() throws IOException {
+		BitmaskSpreadsheetPermissionStore store = new BitmaskSpreadsheetPermissionStore(
+				PermissionImplications.of("OWNER > WRITE"));
+		try (Closeable files = store.open(directory)) {
+			store.update(changes -> changes
+					.grant(new SpreadsheetPermission(alice, one, "OWNER"))
+					.grant(new SpreadsheetGroupPermission("ROLE_FINANCE", two, "OWNER")));
+			assertThat(store.hasPermission("alice", 1L, "WRITE")).isTrue();
+		}
+
+		// Dropping the rule revokes the implied level, without touching the grant
+		List<GrantedAuthority> finance = AuthorityUtils.createAuthorityList("ROLE_FINANCE");
+		BitmaskSpreadsheetPermissionStore withoutRule = new BitmaskSpreadsheetPermissionStore();
+		try (Closeable files = withoutRule.open(directory)) {
+			assertThat(withoutRule.hasPermission("alice", 1L, "OWNER")).isTrue();
+			assertThat(withoutRule.hasPermission("alice", 1L, "WRITE")).isFalse();
+			assertThat(withoutRule.hasPermission("bob", finance, 2L, "OWNER")).isTrue();
+			assertThat(withoutRule.hasPermission("bob", finance, 2L, "WRITE")).isFalse();
+		}
+
+		BitmaskSpreadsheetPermissionStore withOtherRule = new BitmaskSpreadsheetPermissionStore(
+				PermissionImplications.of("OWNER > READ"));
+		try (Closeable files = withOtherRule.open(directory)) {
+			assertThat(withOtherRule.hasPermission("alice", 1L, "READ")).isTrue();
+			assertThat(withOtherRule.hasPermission("alice", 1L, "WRITE")).isFalse();
+			assertThat(withOtherRule.hasPermission("bob", finance, 2L, "READ")).isTrue();
+		}
+	}
+
+	@Test
+	void testChangesSinceSnapshotReplayedFromChangeLog() throws IOException {
+		BitmaskSpreadsheetPermissionStore store = new BitmaskSpreadsheetPermissionStore();
+		store.open(directory);
+		store.grant(new SpreadsheetPermission(alice, one, "READ"));
+		store.checkpoint();
+		store.update(changes -> changes
+				.revoke(new SpreadsheetPermission(alice, one, "READ"))
+				.grant(new SpreadsheetPermission(alice, two, "PRINT"))
+				.grant(new SpreadsheetGroupPermission("ROLE_FINANCE", one, "PRINT")));
+		assertThat(store.hasPermission("alice", 1L, "READ")).isFalse();
+		List<GrantedAuthority> finance = AuthorityUtils.createAuthorityList("ROLE_FINANCE");
+		assertThat(store.hasPermission("alice", finance, 1L, "READ")).isFalse();
+		assertThat(store.hasPermission("alice", finance, 1L, "PRINT")).isTrue();
+
+		// Open another store on the same files without closing the first, as if the first had crashed
+		BitmaskSpreadsheetPermissionStore restarted = new BitmaskSpreadsheetPermissionStore();
+		restarted.open(directory);
+		assertThat(restarted.hasPermission("alice", 1L, "READ")).isFalse();
+		assertThat(restarted.hasPermission("alice", 2L, "PRINT")).isTrue();
+	}
+
+	@Test
+	void testIncompleteChangeLogBlockDiscarded() throws IOException {
+		BitmaskSpreadsheetPermissionStore store = new BitmaskSpreadsheetPermissionStore();
+		store.open(directory);
+		store.grant(new SpreadsheetPermission(alice, one, "READ"));
+		Files.write(directory.resolve("permissions.log"), new byte[] { 0, 0, 1, 0, 42 }, StandardOpenOption.APPEND);
+
+		BitmaskSpreadsheetPermissionStore restarted = new BitmaskSpreadsheetPermissionStore();
+		restarted.open(directory);
+		assertThat(restarted.hasPermission("alice", 1L, "READ")).isTrue();
+		restarted.grant(new SpreadsheetPermission(alice, two, "READ"));
+
+		BitmaskSpreadsheetPermissionStore again = new BitmaskSpreadsheetPermissionStore();
+		again.open(directory);
+		assertThat(again.hasPermission("alice", 2L, "READ")).isTrue();
+	}
+
+	@Test
+	void testManyUsersMapped() throws IOException {
+		BitmaskSpreadsheetPermissionStore store = new BitmaskSpreadsheetPermissionStore();
+		store.update(changes -> {
+			for (int i = 0; i < 10_000; i++) {
+				User user = new User("user" + i, "", Collections.emptyList());
+				changes.grant(new SpreadsheetPermission(user, new Spreadsheet((long) i, "sheet"), "READ"));
+				changes.grant(new SpreadsheetPermission(user, new Spreadsheet(i + 1L, "sheet"), "WRITE"));
+			}
+		});
+		store.open(directory);
+
+		assertThat(store.snapshot().usernames()).hasSize(10_000);
+		for (int i = 0; i < 10_000; i++) {
+			assertThat(store.hasPermission("user" + i, (long) i, "READ")).isTrue();
+			assertThat(store.hasPermission("user" + i, i + 1L, "WRITE")).isTrue();
+			assertThat(store.hasPermission("user" + i, i + 1L, "READ")).isFalse();
+		}
+		assertThat(store.permittedSpreadsheets("user42", "READ").test(42L)).isTrue();
+		assertThat(store.snapshot().copyOfEntries("user42").size()).isEqualTo(2);
+		assertThat(store.hasPermission("user10000", 0L, "READ")).isFalse();
+	}
+
+}
@@ -0,0 +1,104 @@
+package com.jdriven.permission;
+
+import java.util.Collections;
+
+import com.jdriven.model.Spreadsheet;
+import com.jdriven.service.SpreadsheetService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(webEnvironment = WebEnvironment.NONE, properties = "spreadsheet.permission.memoize=true")
+class MemoizingPermissionEvaluatorIT {
+
+	@Autowired
+	private SpreadsheetPermissionStore store;
+
+	@Autowired
+	private SpreadsheetService service;
+
+	@Autowired
+	private MemoizingPermissionEvaluator evaluator;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private Spreadsheet spreadsheet;
+
+	private long hits;
+
+	private long misses;
+
+	@BeforeEach
+	void setup() {
+		User alice = new User("alice", "", Collections.emptyList());
+		spreadsheet = new Spreadsheet(123L, "alice's spreadsheet");
+		store.grant(new SpreadsheetPermission(alice, spreadsheet, "READ"));
+		hits = evaluator.getHits();
+		misses = evaluator.getMisses();
+	}
+
+	@AfterEach
+	void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	@WithMockUser("alice")
+	void testRepeatedChecksWithinRequestAreMemoized() {
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		service.read(spreadsheet);
+		service.read(spreadsheet);
+		service.readById(spreadsheet.getId());
+		assertThat(evaluator.getMisses() - misses).isEqualTo(2);
+		assertThat(evaluator.getHits() - hits).isEqualTo(1);
+		assertThat(meterRegistry.get("spreadsheet.permission.memo").tag("result", "hit").functionCounter().count())
+				.isEqualTo(evaluator.getHits());
+	}
+
+	@Test
+	@WithMockUser("alice")
+	void testDenialsAreMemoized() {
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		assertThrows(AccessDeniedException.class, () -> service.write(spreadsheet));
+		assertThrows(AccessDeniedException.class, () -> service.write(spreadsheet));
+		assertThat(evaluator.getMisses() - misses).isEqualTo(1);
+		assertThat(evaluator.getHits() - hits).isEqualTo(1);
+	}
+
+	@Test
+	@WithMockUser("alice")
+	void testChecksAreNotMemoizedAcrossRequests() {
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		service.read(spreadsheet);
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		service.read(spreadsheet);
+		assertThat(evaluator.getMisses() - misses).isEqualTo(2);
+		assertThat(evaluator.getHits() - hits).isZero();
+	}
+
+	@Test
+	@WithMockUser("alice")
+	void testChecksAreNotMemoizedOutsideOfRequest() {
+		service.read(spreadsheet);
+		service.read(spreadsheet);
+		assertThat(evaluator.getMisses() - misses).isZero();
+		assertThat(evaluator.getHits() - hits).isZero();
+	}
+
+}
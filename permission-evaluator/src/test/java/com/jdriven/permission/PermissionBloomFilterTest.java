@@ -0,0 +1,55 @@
+package com.jdriven.permission;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PermissionBloomFilterTest {
+
+	@Test
+	void testNoFalseNegatives() {
+		PermissionBloomFilter filter = PermissionBloomFilter.create(100_000, 0.01);
+		for (long id = 0; id < 100_000; id++) {
+			filter.add("user" + id % 1_000, id);
+		}
+		for (long id = 0; id < 100_000; id++) {
+			assertThat(filter.mightContain("user" + id % 1_000, id)).isTrue();
+		}
+		assertThat(filter.needsRebuild()).isFalse();
+	}
+
+	@Test
+	void testFalsePositiveRateWithinBounds() {
+		PermissionBloomFilter filter = PermissionBloomFilter.create(100_000, 0.01);
+		for (long id = 0; id < 100_000; id++) {
+			filter.add("user" + id % 1_000, id);
+		}
+		int falsePositives = 0;
+		for (long id = 100_000; id < 200_000; id++) {
+			if (filter.mightContain("user" + id % 1_000, id)) {
+				falsePositives++;
+			}
+		}
+		assertThat(falsePositives / 100_000d).isLessThan(0.01);
+		assertThat(filter.expectedFalsePositiveRate()).isLessThan(0.01);
+		assertThat(filter.memoryBytes()).isEqualTo(1 << 17);
+	}
+
+	@Test
+	void testNeedsRebuildOnceFullOrRevoked() {
+		PermissionBloomFilter filter = PermissionBloomFilter.create(100, 0.01);
+		for (long id = 0; id < 100; id++) {
+			filter.add("alice", id);
+		}
+		assertThat(filter.needsRebuild()).isFalse();
+		filter.add("alice", 100);
+		assertThat(filter.needsRebuild()).isTrue();
+
+		PermissionBloomFilter revoked = PermissionBloomFilter.create(100, 0.01);
+		for (int i = 0; i < 26; i++) {
+			revoked.remove();
+		}
+		assertThat(revoked.needsRebuild()).isTrue();
+	}
+
+}
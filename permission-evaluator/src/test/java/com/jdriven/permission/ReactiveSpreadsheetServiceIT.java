@@ -0,0 +1,78 @@
+package com.jdriven.permission;
+
+import java.util.Collections;
+
+import com.jdriven.model.Spreadsheet;
+import com.jdriven.service.ReactiveSpreadsheetService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class ReactiveSpreadsheetServiceIT {
+
+	@Autowired
+	private SpreadsheetPermissionStore store;
+
+	@Autowired
+	private ReactiveSpreadsheetService service;
+
+	private final User alice = new User("alice", "", Collections.emptyList());
+
+	private final User bob = new User("bob", "", Collections.emptyList());
+
+	private Spreadsheet spreadsheet;
+
+	@BeforeEach
+	void setup() {
+		spreadsheet = new Spreadsheet(789L, "alice's reactive spreadsheet");
+		store.grant(new SpreadsheetPermission(alice, spreadsheet, "READ"));
+		store.grant(new SpreadsheetPermission(alice, spreadsheet, "WRITE"));
+		store.grant(new SpreadsheetPermission(bob, spreadsheet, "READ"));
+	}
+
+	@Test
+	@WithMockUser("alice")
+	void testAliceAllowedToReadAndWriteSpreadsheet() {
+		assertThat(service.read(spreadsheet).block()).isEqualTo(spreadsheet);
+		assertThat(service.readLinesById(spreadsheet.getId()).collectList().block()).hasSize(2);
+		service.write(spreadsheet).block();
+	}
+
+	@Test
+	@WithMockUser("bob")
+	void testBobNotAllowedToWriteSpreadsheet() {
+		assertThat(service.read(spreadsheet).block()).isEqualTo(spreadsheet);
+		Mono<Void> write = service.write(spreadsheet);
+		assertThrows(AccessDeniedException.class, write::block);
+	}
+
+	@Test
+	@WithMockUser("eve")
+	void testEveNotAllowedToReadSpreadsheetById() {
+		assertThrows(AccessDeniedException.class, () -> service.readLinesById(spreadsheet.getId()).blockLast());
+	}
+
+	@Test
+	void testCheckedAgainstSubscriberAuthentication() {
+		// Calling the method only assembles the publisher, the check happens once subscribed
+		Mono<Void> write = service.write(spreadsheet);
+		assertThrows(AccessDeniedException.class, write::block);
+		write.contextWrite(ReactiveSecurityContextHolder.withAuthentication(
+				UsernamePasswordAuthenticationToken.authenticated(alice, null, alice.getAuthorities())))
+			.block();
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.jdriven.permission;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.jdriven.model.Spreadsheet;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpreadsheetPermissionFilterInterceptorTest {
+
+	private final BitmaskSpreadsheetPermissionStore store = new BitmaskSpreadsheetPermissionStore();
+
+	private final DenialLog denials = new DenialLog(Duration.ofMinutes(1), 10);
+
+	private final Spreadsheets spreadsheets;
+
+	SpreadsheetPermissionFilterInterceptorTest() {
+		CustomPermissionEvaluator evaluator = new CustomPermissionEvaluator(
+				List.of(new SpreadsheetPermissionResolver(store)), denials);
+		// Advise every method, rather than only those annotated
+		ProxyFactory proxyFactory = new ProxyFactory(new Spreadsheets());
+		proxyFactory.addAdvice(new SpreadsheetPermissionFilterInterceptor(evaluator));
+		proxyFactory.setProxyTargetClass(true);
+		spreadsheets = (Spreadsheets) proxyFactory.getProxy();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		SecurityContextHolder.clearContext();
+		denials.destroy();
+	}
+
+	@Test
+	void testFilterAnnotatedMethod() {
+		User alice = new User("alice", "", List.of());
+		store.grant(new SpreadsheetPermission(alice, new Spreadsheet(1L, "one"), "READ"));
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(alice, null));
+
+		assertThat(spreadsheets.readAll()).containsExactly(new Spreadsheet(1L, "one"));
+	}
+
+	@Test
+	void testProceedWithoutAnnotation() {
+		assertThat(spreadsheets.listAll()).hasSize(2);
+	}
+
+	static class Spreadsheets {
+
+		@SpreadsheetReadFilter
+		public List<Spreadsheet> readAll() {
+			return listAll();
+		}
+
+		public List<Spreadsheet> listAll() {
+			return new ArrayList<>(List.of(new Spreadsheet(1L, "one"), new Spreadsheet(2L, "two")));
+		}
+
+	}
+
+}
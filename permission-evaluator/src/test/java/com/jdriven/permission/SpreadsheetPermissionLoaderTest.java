@@ -0,0 +1,112 @@
+package com.jdriven.permission;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.jdriven.model.Spreadsheet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SpreadsheetPermissionLoaderTest {
+
+	private final BitmaskSpreadsheetPermissionStore store = new BitmaskSpreadsheetPermissionStore(
+			PermissionImplications.of("WRITE > READ"));
+
+	private final SpreadsheetPermissionLoader loader = new SpreadsheetPermissionLoader(store, 4);
+
+	@TempDir
+	private Path directory;
+
+	@Test
+	void testLoadCsvReplacesPermissions() throws IOException {
+		store.grant(new SpreadsheetPermission(new User("eve", "", Collections.emptyList()),
+				new Spreadsheet(1L, "one"), "READ"));
+		store.grant(new SpreadsheetGroupPermission("ROLE_FINANCE", new Spreadsheet(2L, "two"), "PRINT"));
+		long version = store.version();
+
+		// More grants than fit in a chunk, so several workers index them concurrently
+		List<String> lines = new ArrayList<>();
+		for (int i = 0; i < SpreadsheetPermissionLoader.CHUNK_SIZE * 3; i++) {
+			lines.add("user" + i % 100 + "," + i + ",READ");
+		}
+		lines.add("");
+		lines.add("alice,1,WRITE");
+		lines.add("alice,1,PRINT");
+		Path file = Files.write(directory.resolve("grants.csv"), lines);
+
+		assertThat(loader.load(file)).isEqualTo(SpreadsheetPermissionLoader.CHUNK_SIZE * 3 + 2);
+		assertThat(store.version()).isEqualTo(version + 1);
+		assertThat(store.hasPermission("eve", 1L, "READ")).isFalse();
+		assertThat(store.hasPermission("alice", 1L, "READ")).isTrue();
+		assertThat(store.hasPermission("alice", 1L, "PRINT")).isTrue();
+		assertThat(store.hasPermission("user42", 142L, "READ")).isTrue();
+		assertThat(store.hasPermission("user42", 143L, "READ")).isFalse();
+		// Only user permissions are loaded from the file, so those granted to authorities are kept
+		assertThat(store.hasPermission("eve", AuthorityUtils.createAuthorityList("ROLE_FINANCE"), 2L, "PRINT"))
+				.isTrue();
+	}
+
+	@Test
+	void testLoadIntoSnapshotKeepsGroupPermissionsOnRestart() throws IOException {
+		Path snapshotDirectory = directory.resolve("snapshot");
+		try (Closeable files = store.open(snapshotDirectory)) {
+			store.grant(new SpreadsheetGroupPermission("ROLE_FINANCE", new Spreadsheet(2L, "two"), "PRINT"));
+			loader.load(Files.write(directory.resolve("grants.csv"), List.of("alice,1,READ")));
+		}
+
+		BitmaskSpreadsheetPermissionStore restarted = new BitmaskSpreadsheetPermissionStore();
+		try (Closeable files = restarted.open(snapshotDirectory)) {
+			assertThat(restarted.hasPermission("alice", 1L, "READ")).isTrue();
+			assertThat(restarted.hasPermission("alice", AuthorityUtils.createAuthorityList("ROLE_FINANCE"), 2L,
+					"PRINT")).isTrue();
+		}
+	}
+
+	@Test
+	void testCsvStartingLikeBinaryMagicIsNotTakenForBinary() throws IOException {
+		Path file = Files.write(directory.resolve("grants.csv"), List.of("SPG1,1,READ"));
+
+		assertThat(loader.load(file)).isEqualTo(1);
+		assertThat(store.hasPermission("SPG1", 1L, "READ")).isTrue();
+	}
+
+	@Test
+	void testLoadBinary() throws IOException {
+		Path file = directory.resolve("grants.bin");
+		try (SpreadsheetPermissionLoader.BinaryWriter writer = new SpreadsheetPermissionLoader.BinaryWriter(file)) {
+			for (long id = 0; id < SpreadsheetPermissionLoader.CHUNK_SIZE * 2; id++) {
+				writer.write("alice", id, PermissionLevel.WRITE);
+			}
+			writer.write("bob", 1L, PermissionLevel.PRINT);
+		}
+
+		assertThat(loader.load(file)).isEqualTo(SpreadsheetPermissionLoader.CHUNK_SIZE * 2 + 1);
+		assertThat(store.hasPermission("alice", 12_345L, "READ")).isTrue();
+		assertThat(store.hasPermission("bob", 1L, "PRINT")).isTrue();
+		assertThat(store.hasPermission("bob", 1L, "READ")).isFalse();
+	}
+
+	@Test
+	void testInvalidGrantLeavesStoreUnchanged() throws IOException {
+		long version = store.version();
+		Path file = Files.write(directory.resolve("grants.csv"), List.of("alice,1,READ", "", "bob,two,READ"));
+
+		assertThatThrownBy(() -> loader.load(file))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Invalid grant on line 3: bob,two,READ");
+		assertThat(store.version()).isEqualTo(version);
+		assertThat(store.hasPermission("alice", 1L, "READ")).isFalse();
+	}
+
+}